@@ -0,0 +1,53 @@
+package monet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Generates the same task lists and data files on every run, so that benchmark results stay comparable.
+ *
+ * The lists are the performance gate's Workload tasks, with a fixed seed and the default mix: half todos,
+ * three in ten deadlines and two in ten events.
+ * Data files are written once per size and format under build/jmh-data and reused by later runs.
+ */
+final class BenchmarkData {
+    /** The list sizes the benchmarks run at, from 10^3 to 10^7 tasks. */
+    static final String[] SIZES = {"1000", "10000", "100000", "1000000", "10000000"};
+
+    private static final long SEED = 20250915L;
+    private static final File DATA_DIRECTORY = new File("build/jmh-data");
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns a generated task list.
+     *
+     * @param size The number of tasks.
+     * @return The same tasks, in the same order, for every call with this size.
+     */
+    static ArrayList<Task> tasks(int size) {
+        return new Workload(SEED, Workload.DEFAULT_MIX).tasks(size);
+    }
+
+    /**
+     * Returns a data file holding the generated task list, writing it first if an earlier run has not.
+     *
+     * @param size The number of tasks.
+     * @param format The snapshot format of the file.
+     * @return The data file.
+     * @throws IOException If the file cannot be written.
+     */
+    static File dataFile(int size, Storage.Format format) throws IOException {
+        File file = new File(DATA_DIRECTORY, "monet-" + size + "-" + format.name().toLowerCase() + ".txt");
+        if (!file.exists()) {
+            DATA_DIRECTORY.mkdirs();
+            Storage storage = new Storage(file.getPath());
+            storage.setFormat(format);
+            storage.save(tasks(size));
+            storage.close();
+        }
+        return file;
+    }
+}
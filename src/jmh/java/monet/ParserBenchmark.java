@@ -0,0 +1,50 @@
+package monet;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing of typed commands. Parsing does not depend on the length of the list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+    // Fields rather than constants, so that the JIT cannot fold the parsing away.
+    private String listCommand = "list";
+    private String lastCommand = "upcoming 5";
+    private String deadline = "deadline return book /by 2025-12-02 1800 /p 1";
+    private String event = "event project meeting /from 2025-09-15 1400 /to 1600 /p 2";
+
+    @Benchmark
+    public Command parseFirstCommand() {
+        return Parser.parseCommand(listCommand);
+    }
+
+    @Benchmark
+    public Command parseLastCommand() {
+        return Parser.parseCommand(lastCommand);
+    }
+
+    @Benchmark
+    public Parser.DeadlineArgs parseDeadline() throws MonetException {
+        return Parser.parseDeadline(deadline);
+    }
+
+    @Benchmark
+    public Parser.EventArgs parseEvent() throws MonetException {
+        return Parser.parseEvent(event);
+    }
+}
@@ -0,0 +1,76 @@
+package monet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading and saving the data file, in both snapshot formats.
+ * A save is timed until the snapshot is on disk, not just until it has been handed to the background writer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class StorageBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"TEXT", "BINARY"})
+    private Storage.Format format;
+
+    private File dataFile;
+    private File saveFile;
+    private Storage saveStorage;
+    private ArrayList<Task> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataFile = BenchmarkData.dataFile(size, format);
+        saveFile = File.createTempFile("monet-save-", ".txt");
+        saveStorage = new Storage(saveFile.getPath());
+        saveStorage.setFormat(format);
+        tasks = BenchmarkData.tasks(size);
+    }
+
+    /**
+     * Deletes the file written by save(), along with its journal.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        saveStorage.close();
+        saveFile.delete();
+        new File(saveFile.getPath() + ".journal").delete();
+    }
+
+    @Benchmark
+    public ArrayList<Task> load() throws MonetException {
+        return new Storage(dataFile.getPath()).load();
+    }
+
+    /**
+     * Saves the whole list and waits for the background writer to finish.
+     */
+    @Benchmark
+    public void save() throws IOException {
+        saveStorage.save(tasks);
+        saveStorage.flush();
+    }
+}
@@ -0,0 +1,68 @@
+package monet;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the queries of a TaskList and the formatting of the list command's response.
+ * The lazily built indexes are built during the warm-up, so the timed calls measure the lookups alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class TaskListBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private TaskList tasks;
+    private Ui ui;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tasks = new TaskList(BenchmarkData.tasks(size));
+        ui = new Ui();
+    }
+
+    @Benchmark
+    public TaskList findCommonWord() {
+        return tasks.findTasks("report");
+    }
+
+    @Benchmark
+    public TaskList findRarePhrase() {
+        return tasks.findTasks("water plants 999");
+    }
+
+    /**
+     * Finds a keyword too short for the trigram index, which scans the whole list.
+     */
+    @Benchmark
+    public TaskList findShortKeyword() {
+        return tasks.findTasks("gy");
+    }
+
+    @Benchmark
+    public TaskList filterByPriority() {
+        return tasks.filterByPriority(Priority.HIGH);
+    }
+
+    @Benchmark
+    public String getTaskListMessage() {
+        return ui.getTaskListMessage(tasks);
+    }
+}
@@ -0,0 +1,130 @@
+package monet.gui;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+
+/**
+ * Measures how many chat messages per second can be turned into dialog boxes.
+ *
+ * Three ways are compared, each building a box, setting its text and picture, and dropping it:
+ * - fxml:   loading /view/DialogBox.fxml for every message, as DialogBox used to
+ * - code:   building a new DialogBox in code
+ * - pooled: taking a DialogBox from the pool and handing it back, as the chat list's cells do
+ * Only the construction is timed, not the layout or rendering, which is the same for all three.
+ * Every way runs a warm-up round first, so that the JIT has compiled it before it is timed.
+ *
+ * JavaFX objects must be built on its Application Thread, which JMH cannot run benchmarks on, so this is a plain
+ * program instead: gradle benchDialogs [-Pmessages=count]. It needs a display, like the GUI.
+ */
+public class DialogBoxBenchmark {
+    /** The number of messages per round when no other is given. */
+    public static final int DEFAULT_MESSAGES = 20_000;
+
+    private final int messageCount;
+    private Image image;
+
+    /**
+     * Constructs a benchmark.
+     *
+     * @param messageCount The number of messages each way builds per round.
+     */
+    public DialogBoxBenchmark(int messageCount) {
+        assert messageCount > 0 : "Benchmark needs messages to build";
+        this.messageCount = messageCount;
+    }
+
+    /**
+     * Runs the benchmark and prints the report.
+     *
+     * @param args The number of messages per round, if not the default.
+     * @throws IOException If the FXML layout cannot be loaded.
+     */
+    public static void main(String[] args) throws IOException {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MESSAGES;
+        System.out.println(new DialogBoxBenchmark(messages).run());
+    }
+
+    /**
+     * Starts JavaFX, runs the benchmark on its Application Thread, and stops JavaFX again.
+     * JavaFX needs a display, so this cannot run on a headless machine.
+     *
+     * @return The messages per second of each way, one per line.
+     * @throws IOException If the FXML layout cannot be loaded.
+     */
+    public String run() throws IOException {
+        CompletableFuture<String> report = new CompletableFuture<>();
+        Platform.startup(() -> {
+            try {
+                report.complete(measure());
+            } catch (IOException | RuntimeException e) {
+                report.completeExceptionally(e);
+            }
+        });
+        try {
+            return report.join();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        } finally {
+            Platform.exit();
+        }
+    }
+
+    private String measure() throws IOException {
+        image = new Image(getClass().getResourceAsStream("/images/monet.png"));
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d messages per round%n", messageCount));
+        sb.append(format("fxml", time(this::loadFxml)));
+        // The pool is empty here, and nothing is handed back to it, so every call builds a new box.
+        sb.append(format("code", time(i -> DialogBox.getMonetDialog("message " + i, image))));
+        sb.append(format("pooled", time(i -> DialogBox.recycle(DialogBox.getMonetDialog("message " + i, image)))));
+        return sb.toString().trim();
+    }
+
+    private String format(String name, long nanos) {
+        return String.format("%-7s %,12.0f messages/s%n", name, messageCount / (nanos / 1e9));
+    }
+
+    /**
+     * Builds a box for every message, in a warm-up round and then a timed one.
+     *
+     * @return The nanoseconds the timed round took.
+     */
+    private long time(BoxBuilder builder) throws IOException {
+        long elapsed = 0;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < messageCount; i++) {
+                builder.build(i);
+            }
+            elapsed = System.nanoTime() - start;
+        }
+        return elapsed;
+    }
+
+    private void loadFxml(int message) throws IOException {
+        FXMLLoader loader = new FXMLLoader(DialogBox.class.getResource("/view/DialogBox.fxml"));
+        loader.setRoot(new HBox());
+        loader.load();
+        Label dialog = (Label) loader.getNamespace().get("dialog");
+        ImageView displayPicture = (ImageView) loader.getNamespace().get("displayPicture");
+        dialog.setText("message " + message);
+        displayPicture.setImage(image);
+    }
+
+    /**
+     * One way of building the box for a message.
+     */
+    private interface BoxBuilder {
+        void build(int message) throws IOException;
+    }
+}
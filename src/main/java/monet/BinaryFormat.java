@@ -0,0 +1,262 @@
+package monet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the compact binary snapshot format.
+ *
+ * A binary snapshot starts with the magic bytes "MONB" and a version byte, followed by one record per task:
+ * - [Type]      one byte, 'T', 'D' or 'E'
+ * - [Flags]     one byte: bit 0 is the done status, bits 1-2 the priority ordinal,
+ *               bit 3 set if the date/times carry nanoseconds
+ * - [Length]    varint byte length of the description, followed by its UTF-8 bytes
+ * - [DateTimes] for a Deadline the 'by' time, for an Event the 'from' and 'to' times, each as zig-zag
+ *               varint epoch seconds (UTC), followed by a varint of nanoseconds when bit 3 is set
+ *
+ * Text snapshots always start with a task type letter, so the two formats can be told apart by the magic bytes.
+ */
+class BinaryFormat {
+    static final byte VERSION = 1;
+
+    private static final byte[] MAGIC = {'M', 'O', 'N', 'B'};
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+    private static final int DONE_FLAG = 1;
+    private static final int PRIORITY_SHIFT = 1;
+    private static final int PRIORITY_MASK = 0b110;
+    private static final int NANOS_FLAG = 1 << 3;
+    /** Largest encoding of a record without its description: type, flags, length and two dates with nanos. */
+    private static final int MAX_FIXED_SIZE = 2 + 5 + 2 * (10 + 5);
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Returns whether the file contents start with the binary snapshot header.
+     *
+     * @param channel An open channel to the file.
+     * @return True if the file is a binary snapshot.
+     * @throws IOException If the file cannot be read.
+     */
+    static boolean isBinary(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(MAGIC.length);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // Keep reading until the magic bytes are in, or the file ends.
+        }
+        return !header.hasRemaining() && header.flip().equals(ByteBuffer.wrap(MAGIC));
+    }
+
+    /**
+     * Writes the magic bytes and version that start every binary snapshot.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If there is an error writing.
+     */
+    static void writeHeader(OutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+    }
+
+    /**
+     * Writes one task as a binary record.
+     *
+     * @param out The stream to write to, ideally buffered.
+     * @param task The task to write.
+     * @throws IOException If there is an error writing.
+     */
+    static void write(OutputStream out, Task task) throws IOException {
+        LocalDateTime first = null;
+        LocalDateTime second = null;
+        char type = 'T';
+        if (task instanceof Deadline) {
+            type = 'D';
+            first = ((Deadline) task).by;
+        } else if (task instanceof Event) {
+            type = 'E';
+            first = ((Event) task).from;
+            second = ((Event) task).to;
+        }
+        boolean hasNanos = (first != null && first.getNano() != 0) || (second != null && second.getNano() != 0);
+
+        int flags = (task.isDone() ? DONE_FLAG : 0) | (task.getPriority().ordinal() << PRIORITY_SHIFT)
+                | (hasNanos ? NANOS_FLAG : 0);
+        out.write(type);
+        out.write(flags);
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, description.length);
+        out.write(description);
+        if (first != null) {
+            writeDateTime(out, first, hasNanos);
+        }
+        if (second != null) {
+            writeDateTime(out, second, hasNanos);
+        }
+    }
+
+    /**
+     * Reads all tasks from a binary snapshot.
+     *
+     * @param channel An open channel to the file, read from the start.
+     * @param checksum Updated with every byte of the file.
+     * @return The tasks in file order.
+     * @throws IOException If the file cannot be read, has an unknown version, is truncated or is corrupted.
+     */
+    static ArrayList<Task> read(FileChannel channel, CRC32 checksum) throws IOException {
+        Reader reader = new Reader(channel, checksum);
+        ArrayList<Task> tasks = new ArrayList<>();
+        reader.require(HEADER_SIZE);
+        reader.buffer.position(MAGIC.length);
+        byte version = reader.buffer.get();
+        if (version != VERSION) {
+            throw new IOException("Unknown data fileth version " + version);
+        }
+        while (reader.require(1)) {
+            reader.require(MAX_FIXED_SIZE);
+            ByteBuffer buffer = reader.buffer;
+            byte type = buffer.get();
+            int flags = buffer.get();
+            boolean hasNanos = (flags & NANOS_FLAG) != 0;
+            int priorityOrdinal = (flags & PRIORITY_MASK) >> PRIORITY_SHIFT;
+            if (priorityOrdinal >= Priority.values().length) {
+                throw new IOException("Corrupted record in data fileth");
+            }
+            Priority priority = Priority.values()[priorityOrdinal];
+
+            long encodedLength = readVarint(buffer);
+            // Checked before any buffer is sized by it, so a corrupted length is reported rather than thrown
+            // as an exception the caller does not expect.
+            if (encodedLength < 0 || encodedLength > channel.size()) {
+                throw new IOException("Corrupted record in data fileth");
+            }
+            int length = (int) encodedLength;
+            if (!reader.require(length)) {
+                throw new IOException("Truncated data fileth");
+            }
+            buffer = reader.buffer; // May have been replaced by a larger one for a long description.
+            String description;
+            if (buffer.hasArray()) {
+                description = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                        StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                description = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            reader.require(MAX_FIXED_SIZE);
+            buffer = reader.buffer;
+            Task task;
+            switch (type) {
+            case 'T':
+                task = new Todo(description, priority);
+                break;
+            case 'D':
+                task = new Deadline(description, readDateTime(buffer, hasNanos), priority);
+                break;
+            case 'E':
+                LocalDateTime from = readDateTime(buffer, hasNanos);
+                task = new Event(description, from, readDateTime(buffer, hasNanos), priority);
+                break;
+            default:
+                throw new IOException("Corrupted record in data fileth");
+            }
+            if ((flags & DONE_FLAG) != 0) {
+                task.markAsDone();
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static void writeDateTime(OutputStream out, LocalDateTime dateTime, boolean hasNanos)
+            throws IOException {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        writeVarint(out, (seconds << 1) ^ (seconds >> 63)); // Zig-zag, so dates before 1970 stay short.
+        if (hasNanos) {
+            writeVarint(out, dateTime.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer buffer, boolean hasNanos) throws IOException {
+        long zigZag = readVarint(buffer);
+        long seconds = (zigZag >>> 1) ^ -(zigZag & 1);
+        long nanos = hasNanos ? readVarint(buffer) : 0;
+        try {
+            return LocalDateTime.ofEpochSecond(seconds, Math.toIntExact(nanos), ZoneOffset.UTC);
+        } catch (DateTimeException | ArithmeticException e) {
+            throw new IOException("Corrupted date in data fileth");
+        }
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.write((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
+    }
+
+    private static long readVarint(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                throw new IOException("Truncated data fileth");
+            }
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted number in data fileth");
+    }
+
+    /**
+     * Reads a channel through a reusable buffer, refilling it as records are consumed.
+     */
+    private static class Reader {
+        private final FileChannel channel;
+        private final CRC32 checksum;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+        private boolean isAtEnd;
+
+        Reader(FileChannel channel, CRC32 checksum) {
+            this.channel = channel;
+            this.checksum = checksum;
+        }
+
+        /**
+         * Makes at least the given number of bytes available in the buffer, unless the file ends first.
+         *
+         * @return True if that many bytes are available.
+         */
+        boolean require(int count) throws IOException {
+            if (buffer.remaining() >= count || isAtEnd) {
+                return buffer.remaining() >= count;
+            }
+            buffer.compact();
+            if (buffer.capacity() < count) {
+                buffer = ByteBuffer.allocate(count).put(buffer.flip());
+            }
+            while (buffer.position() < count && !isAtEnd) {
+                int start = buffer.position();
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    isAtEnd = true;
+                } else {
+                    checksum.update(buffer.array(), start, read);
+                }
+            }
+            buffer.flip();
+            return buffer.remaining() >= count;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package monet;
 
 /**
  * Represents the set of valid commands for the Monet chatbot.
+ * The user types each command as its name, in any letter case.
  */
 public enum Command {
     LIST,
@@ -14,5 +15,12 @@ public enum Command {
     BYE,
     FIND,
     PRIORITY,
+    DUE,
+    UPCOMING,
+    CONFLICTS,
+    FREE,
+    UNDO,
+    REDO,
+    STATS,
     UNKNOWN // Represents an invalid command
 }
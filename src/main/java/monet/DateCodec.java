@@ -0,0 +1,253 @@
+package monet;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Parses and formats the date/times Monet reads and shows, with hand-written code for the fixed layouts.
+ *
+ * Three layouts are handled:
+ * - Input:   "yyyy-MM-dd HHmm" typed by the user, plus "yyyy-MM-dd" and "HHmm" alone
+ * - ISO:     "yyyy-MM-ddTHH:mm[:ss]", as LocalDateTime.toString() writes to the data file
+ * - Display: "MMM dd yyyy, h:mm a", as shown to the user
+ *
+ * The fast paths only take input that is plainly valid (ASCII digits, real dates, hours 0-23, years 1-9999).
+ * Anything else, such as "2025-02-30" or a 24:00 time, goes to the java.time formatters below, so every
+ * method gives exactly the result or the exception the formatter would. Month names and AM/PM markers are
+ * taken from the same default locale the formatters use.
+ */
+class DateCodec {
+    static final DateTimeFormatter INPUT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+    static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HHmm");
+    static final DateTimeFormatter DISPLAY_FORMATTER = DateTimeFormatter.ofPattern("MMM dd yyyy, h:mm a");
+
+    private static final String[] MONTH_NAMES = new String[12];
+    private static final String AM_MARKER;
+    private static final String PM_MARKER;
+
+    static {
+        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMM");
+        for (Month month : Month.values()) {
+            MONTH_NAMES[month.ordinal()] = monthFormatter.format(LocalDate.of(2000, month, 1));
+        }
+        DateTimeFormatter markerFormatter = DateTimeFormatter.ofPattern("a");
+        AM_MARKER = markerFormatter.format(LocalTime.MIDNIGHT);
+        PM_MARKER = markerFormatter.format(LocalTime.NOON);
+    }
+
+    /**
+     * Parses a date/time typed by the user, as LocalDateTime.parse(text, INPUT_FORMATTER) would.
+     *
+     * @param text The text, e.g. "2025-10-01 1800".
+     * @return The date/time.
+     * @throws java.time.format.DateTimeParseException If the text is not a valid date/time.
+     */
+    static LocalDateTime parseInput(String text) {
+        if (text.length() == 15 && hasDateLayout(text) && text.charAt(10) == ' ') {
+            LocalDateTime dateTime = toDateTime(digitsAt(text, 0, 4), digitsAt(text, 5, 2), digitsAt(text, 8, 2),
+                    digitsAt(text, 11, 2), digitsAt(text, 13, 2), 0);
+            if (dateTime != null) {
+                return dateTime;
+            }
+        }
+        return LocalDateTime.parse(text, INPUT_FORMATTER);
+    }
+
+    /**
+     * Parses a date typed by the user, as LocalDate.parse(text, DATE_FORMATTER) would.
+     *
+     * @param text The text, e.g. "2025-10-01".
+     * @return The date.
+     * @throws java.time.format.DateTimeParseException If the text is not a valid date.
+     */
+    static LocalDate parseDate(String text) {
+        if (text.length() == 10 && hasDateLayout(text)) {
+            LocalDate date = toDate(digitsAt(text, 0, 4), digitsAt(text, 5, 2), digitsAt(text, 8, 2));
+            if (date != null) {
+                return date;
+            }
+        }
+        return LocalDate.parse(text, DATE_FORMATTER);
+    }
+
+    /**
+     * Parses a time typed by the user, as LocalTime.parse(text, TIME_FORMATTER) would.
+     *
+     * @param text The text, e.g. "1800".
+     * @return The time.
+     * @throws java.time.format.DateTimeParseException If the text is not a valid time.
+     */
+    static LocalTime parseTime(String text) {
+        if (text.length() == 4) {
+            int hour = digitsAt(text, 0, 2);
+            int minute = digitsAt(text, 2, 2);
+            if (hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59) {
+                return LocalTime.of(hour, minute);
+            }
+        }
+        return LocalTime.parse(text, TIME_FORMATTER);
+    }
+
+    /**
+     * Parses a date/time from the data file, as LocalDateTime.parse(text) would.
+     *
+     * @param text The text, e.g. "2025-10-01T18:00".
+     * @return The date/time.
+     * @throws java.time.format.DateTimeParseException If the text is not a valid ISO date/time.
+     */
+    static LocalDateTime parseIso(String text) {
+        int length = text.length();
+        if ((length == 16 || length == 19) && hasDateLayout(text) && text.charAt(10) == 'T'
+                && text.charAt(13) == ':' && (length == 16 || text.charAt(16) == ':')) {
+            LocalDateTime dateTime = toDateTime(digitsAt(text, 0, 4), digitsAt(text, 5, 2), digitsAt(text, 8, 2),
+                    digitsAt(text, 11, 2), digitsAt(text, 14, 2), length == 19 ? digitsAt(text, 17, 2) : 0);
+            if (dateTime != null) {
+                return dateTime;
+            }
+        }
+        return LocalDateTime.parse(text);
+    }
+
+    /**
+     * Parses "yyyy-MM-ddTHH:mm" or "yyyy-MM-ddTHH:mm:ss" straight from the bytes of a line.
+     *
+     * @param line The bytes holding the text.
+     * @param start The offset of the text.
+     * @param end The offset just past the text.
+     * @return The date/time, or null if the text is anything else, for the caller to parse with java.time.
+     */
+    static LocalDateTime parseIso(byte[] line, int start, int end) {
+        int length = end - start;
+        if ((length != 16 && length != 19) || line[start + 4] != '-' || line[start + 7] != '-'
+                || line[start + 10] != 'T' || line[start + 13] != ':' || (length == 19 && line[start + 16] != ':')) {
+            return null;
+        }
+        return toDateTime(digitsAt(line, start, 4), digitsAt(line, start + 5, 2), digitsAt(line, start + 8, 2),
+                digitsAt(line, start + 11, 2), digitsAt(line, start + 14, 2),
+                length == 19 ? digitsAt(line, start + 17, 2) : 0);
+    }
+
+    /**
+     * Formats a date/time for the data file, as dateTime.toString() would.
+     *
+     * @param dateTime The date/time.
+     * @return The ISO text.
+     */
+    static String formatIso(LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999 || dateTime.getNano() != 0) {
+            return dateTime.toString();
+        }
+        boolean hasSeconds = dateTime.getSecond() != 0;
+        char[] chars = new char[hasSeconds ? 19 : 16];
+        putDigits(chars, 0, year, 4);
+        chars[4] = '-';
+        putDigits(chars, 5, dateTime.getMonthValue(), 2);
+        chars[7] = '-';
+        putDigits(chars, 8, dateTime.getDayOfMonth(), 2);
+        chars[10] = 'T';
+        putDigits(chars, 11, dateTime.getHour(), 2);
+        chars[13] = ':';
+        putDigits(chars, 14, dateTime.getMinute(), 2);
+        if (hasSeconds) {
+            chars[16] = ':';
+            putDigits(chars, 17, dateTime.getSecond(), 2);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Formats a date/time for the user, as dateTime.format(DISPLAY_FORMATTER) would.
+     *
+     * @param dateTime The date/time.
+     * @return The text, e.g. "Oct 01 2025, 6:00 PM".
+     */
+    static String formatDisplay(LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < 1 || year > 9999) {
+            return dateTime.format(DISPLAY_FORMATTER);
+        }
+        int hour = dateTime.getHour();
+        int clockHour = hour % 12 == 0 ? 12 : hour % 12;
+        char[] digits = new char[4];
+        StringBuilder sb = new StringBuilder(24);
+        sb.append(MONTH_NAMES[dateTime.getMonthValue() - 1]).append(' ');
+        putDigits(digits, 0, dateTime.getDayOfMonth(), 2);
+        sb.append(digits, 0, 2).append(' ');
+        putDigits(digits, 0, year, 4);
+        sb.append(digits, 0, 4).append(", ").append(clockHour).append(':');
+        putDigits(digits, 0, dateTime.getMinute(), 2);
+        sb.append(digits, 0, 2).append(' ').append(hour < 12 ? AM_MARKER : PM_MARKER);
+        return sb.toString();
+    }
+
+    /**
+     * Returns whether the text starts with the dashes of "yyyy-MM-dd". The caller checks the length.
+     */
+    private static boolean hasDateLayout(String text) {
+        return text.charAt(4) == '-' && text.charAt(7) == '-';
+    }
+
+    /**
+     * Returns the date if it is a real one in years 1-9999, or null.
+     */
+    private static LocalDate toDate(int year, int month, int day) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Returns the date/time if every part is in range, or null.
+     */
+    private static LocalDateTime toDateTime(int year, int month, int day, int hour, int minute, int second) {
+        LocalDate date = toDate(year, month, day);
+        if (date == null || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        return date.atTime(hour, minute, second);
+    }
+
+    /**
+     * Returns the value of count ASCII digits, or -1 if any of them is not a digit.
+     */
+    private static int digitsAt(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int digitsAt(byte[] bytes, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Writes value as count decimal digits, zero-padded on the left.
+     */
+    private static void putDigits(char[] chars, int start, int value, int count) {
+        for (int i = start + count - 1; i >= start; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package monet;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
 /**
@@ -10,11 +9,6 @@ import java.time.format.DateTimeParseException;
 public class Deadline extends Task {
     protected LocalDateTime by;
 
-    // Defines the expected format for user date/time input.
-    private static final DateTimeFormatter INPUT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-    // Defines the desired format for displaying the date/time to the user.
-    private static final DateTimeFormatter OUTPUT_FORMATTER = DateTimeFormatter.ofPattern("MMM dd yyyy, h:mm a");
-
     /**
      * Constructs a Deadline task from user input.
      * Parses the date string into a LocalDateTime object.
@@ -28,7 +22,7 @@ public class Deadline extends Task {
         super(description, priority);
         try {
             // Attempt to parse the user-provided date string.
-            this.by = LocalDateTime.parse(byString.trim(), INPUT_FORMATTER);
+            this.by = DateCodec.parseInput(byString.trim());
         } catch (DateTimeParseException e) {
             // If parsing fails, throw a custom exception with a relevant message.
             throw new MonetException("Invalid date format f'r deadline.  Prithee useth 'yyyy-MM-dd HHmm'.");
@@ -47,15 +41,26 @@ public class Deadline extends Task {
         this.by = by;
     }
 
+    @Override
+    public LocalDateTime getScheduledTime() {
+        return by;
+    }
+
+    @Override
+    protected Task copy() {
+        return new Deadline(description, by, priority);
+    }
+
     @Override
     public String toString() {
         // Formats the LocalDateTime object into a user-friendly string for display.
-        return "[D]" + super.toString() + " (by: " + by.format(OUTPUT_FORMATTER) + ")";
+        return "[D]" + super.toString() + " (by: " + DateCodec.formatDisplay(by) + ")";
     }
 
     @Override
     public String toFileString() {
         // Converts the task to a machine-readable string for saving to file.
-        return "D | " + (isDone ? "1" : "0") + " | " + priority.name() + " | " + description + " | " + by;
+        return "D | " + (isDone ? "1" : "0") + " | " + priority.name() + " | " + description + " | "
+                + DateCodec.formatIso(by);
     }
 }
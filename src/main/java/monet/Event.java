@@ -1,7 +1,6 @@
 package monet;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
 /**
@@ -11,11 +10,6 @@ public class Event extends Task {
     protected LocalDateTime from;
     protected LocalDateTime to;
 
-    // Defines the expected format for user date/time input.
-    private static final DateTimeFormatter INPUT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-    // Defines the desired format for displaying the date/time to the user.
-    private static final DateTimeFormatter OUTPUT_FORMATTER = DateTimeFormatter.ofPattern("MMM dd yyyy, h:mm a");
-
     /**
      * Constructs an Event task from user input.
      *
@@ -28,8 +22,8 @@ public class Event extends Task {
     public Event(String description, String fromString, String toString, Priority priority) throws MonetException {
         super(description, priority);
         try {
-            this.from = LocalDateTime.parse(fromString.trim(), INPUT_FORMATTER);
-            this.to = LocalDateTime.parse(toString.trim(), INPUT_FORMATTER);
+            this.from = DateCodec.parseInput(fromString.trim());
+            this.to = DateCodec.parseInput(toString.trim());
         } catch (DateTimeParseException e) {
             throw new MonetException("Invalid date format f'r event. Prithee useth 'yyyy-MM-dd HHmm'.");
         }
@@ -49,15 +43,30 @@ public class Event extends Task {
         this.to = to;
     }
 
+    /**
+     * Returns the start of the event, which is when it is scheduled.
+     *
+     * @return The start time of the event.
+     */
+    @Override
+    public LocalDateTime getScheduledTime() {
+        return from;
+    }
+
+    @Override
+    protected Task copy() {
+        return new Event(description, from, to, priority);
+    }
+
     @Override
     public String toString() {
-        return "[E]" + super.toString() + " (from: " + from.format(OUTPUT_FORMATTER)
-                + " to: " + to.format(OUTPUT_FORMATTER) + ")";
+        return "[E]" + super.toString() + " (from: " + DateCodec.formatDisplay(from)
+                + " to: " + DateCodec.formatDisplay(to) + ")";
     }
 
     @Override
     public String toFileString() {
         return "E | " + (isDone ? "1" : "0") + " | " + priority.name()
-                + " | " + description + " | " + from + " | " + to;
+                + " | " + description + " | " + DateCodec.formatIso(from) + " | " + DateCodec.formatIso(to);
     }
 }
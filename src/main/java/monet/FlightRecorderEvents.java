@@ -0,0 +1,156 @@
+package monet;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The events Monet adds to a Java Flight Recorder recording, so that a stall can be matched with what Monet
+ * was doing at the time, next to the garbage collections and file I/O of the JVM.
+ *
+ * Each event is timed from begin() to finish(), which only fills it in and commits it if a recording is running
+ * that wants it. Otherwise an event costs little more than the allocation, which the JIT usually removes.
+ * A CommandEvent, which would be made for every command, is not even allocated unless a recording wants it.
+ * See Launcher for the --record flag that starts a recording.
+ */
+final class FlightRecorderEvents {
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * One command run by Monet.getResponse(), from parsing the input to rendering the response.
+     */
+    @Name("monet.Command")
+    @Label("Command")
+    @Category("Monet")
+    @Description("A command typed by the user, from parsing to the rendered response")
+    static class CommandEvent extends jdk.jfr.Event {
+        private static final EventType TYPE = EventType.getEventType(CommandEvent.class);
+
+        @Label("Command")
+        private String command;
+
+        @Label("List Size")
+        @Description("The number of tasks in the list after the command")
+        private int listSize;
+
+        /**
+         * Returns a new event, begun now, or null if no running recording wants command events.
+         *
+         * @return The event, or null.
+         */
+        static CommandEvent beginIfEnabled() {
+            if (!TYPE.isEnabled()) {
+                return null;
+            }
+            CommandEvent event = new CommandEvent();
+            event.begin();
+            return event;
+        }
+
+        void finish(Command command, TaskList tasks) {
+            end();
+            if (shouldCommit()) {
+                this.command = command.name().toLowerCase();
+                this.listSize = tasks.getSize();
+                commit();
+            }
+        }
+    }
+
+    /**
+     * One load of the data file, including the replay of its journal.
+     */
+    @Name("monet.StorageLoad")
+    @Label("Storage Load")
+    @Category("Monet")
+    @Description("The data file and its journal read into a task list")
+    static class LoadEvent extends jdk.jfr.Event {
+        @Label("Path")
+        private String path;
+
+        @Label("Format")
+        private String format;
+
+        @Label("Bytes")
+        @DataAmount
+        private long bytes;
+
+        @Label("Line Count")
+        @Description("The number of tasks in the snapshot plus the number of journal records replayed")
+        private int lineCount;
+
+        void finish(String path, Storage.Format format, long bytes, int lineCount) {
+            end();
+            if (shouldCommit()) {
+                this.path = path;
+                this.format = format.name();
+                this.bytes = bytes;
+                this.lineCount = lineCount;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * One snapshot of the task list written to the data file by the background writer.
+     */
+    @Name("monet.StorageSave")
+    @Label("Storage Save")
+    @Category("Monet")
+    @Description("A snapshot of the task list written and fsynced, along with a fresh journal")
+    static class SaveEvent extends jdk.jfr.Event {
+        @Label("Path")
+        private String path;
+
+        @Label("Format")
+        private String format;
+
+        @Label("Bytes")
+        @DataAmount
+        private long bytes;
+
+        @Label("Line Count")
+        @Description("The number of tasks written")
+        private int lineCount;
+
+        void finish(String path, Storage.Format format, long bytes, int lineCount) {
+            end();
+            if (shouldCommit()) {
+                this.path = path;
+                this.format = format.name();
+                this.bytes = bytes;
+                this.lineCount = lineCount;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * One build of a search index of a task list. Object-backed lists build each index the first time a query
+     * needs it and then keep it up to date; columnar lists build the event index for every query that uses it.
+     */
+    @Name("monet.IndexRebuild")
+    @Label("Index Rebuild")
+    @Category("Monet")
+    @Description("A search index of a task list built from scratch")
+    static class IndexRebuildEvent extends jdk.jfr.Event {
+        @Label("Index")
+        private String index;
+
+        @Label("Task Count")
+        private int taskCount;
+
+        void finish(String index, int taskCount) {
+            end();
+            if (shouldCommit()) {
+                this.index = index;
+                this.taskCount = taskCount;
+                commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package monet;
+
+import java.util.ArrayDeque;
+
+/**
+ * The most recent changes made to a task list, so that they can be undone and redone.
+ *
+ * A change is stored as the task it affected and its position, never as a copy of the list, so the history
+ * costs a few dozen bytes per change however long the list is. Changes are undone in the reverse order they
+ * were made, which puts the list back in the state right after a change before that change is undone, so the
+ * recorded position is still the right one. The same holds for redoing.
+ * Making a new change clears the changes that could be redone.
+ */
+class History {
+    /** The number of changes kept when no other is given. */
+    static final int DEFAULT_LIMIT = 100;
+
+    private final int limit;
+    private final ArrayDeque<Change> undoable = new ArrayDeque<>();
+    private final ArrayDeque<Change> redoable = new ArrayDeque<>();
+
+    /**
+     * Constructs an empty history.
+     *
+     * @param limit The number of changes to keep; older ones can no longer be undone.
+     */
+    History(int limit) {
+        assert limit > 0 : "History must keep at least one change";
+        this.limit = limit;
+    }
+
+    /**
+     * Records a change that was just made.
+     *
+     * @param change The change.
+     */
+    void record(Change change) {
+        redoable.clear();
+        if (undoable.size() == limit) {
+            undoable.removeLast();
+        }
+        undoable.push(change);
+    }
+
+    /**
+     * Takes the latest change that has not been undone, so that the caller can undo it.
+     *
+     * @return The change, or null if there is none.
+     */
+    Change takeUndo() {
+        Change change = undoable.poll();
+        if (change != null) {
+            redoable.push(change);
+        }
+        return change;
+    }
+
+    /**
+     * Takes the latest change that was undone, so that the caller can make it again.
+     *
+     * @return The change, or null if there is none.
+     */
+    Change takeRedo() {
+        Change change = redoable.poll();
+        if (change != null) {
+            undoable.push(change);
+        }
+        return change;
+    }
+
+    /**
+     * One change to the list: the task at a position went from one state to another.
+     *
+     * @param index The 0-based position of the task.
+     * @param before The task before the change, or null if the change added it.
+     * @param after The task after the change, or null if the change deleted it.
+     */
+    record Change(int index, Task before, Task after) {
+        /**
+         * Returns the change that undoes this one.
+         *
+         * @return The inverse change.
+         */
+        Change inverse() {
+            return new Change(index, after, before);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package monet;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An interval tree over the time spans of Events.
+ *
+ * The tree is a persistent treap ordered by start time (then id), where every node also remembers the latest
+ * end time in its subtree. A subtree whose latest end is before the query window cannot overlap it and is
+ * skipped, so an overlap query costs O(log N + k) for k results. Spans are half-open, so an event ending at
+ * 10:00 does not clash with one starting at 10:00.
+ *
+ * The tree is immutable: adding or removing an event returns a new tree that copies only the nodes on the
+ * path to the change and shares the rest with this one.
+ */
+class IntervalTree {
+    private final Node root;
+
+    /**
+     * Constructs an empty tree.
+     */
+    IntervalTree() {
+        this(null);
+    }
+
+    private IntervalTree(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns a tree holding the given events, built in O(N log N) with a single sort.
+     *
+     * @param events The events to hold.
+     * @return The new tree.
+     */
+    static IntervalTree of(List<Event> events) {
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort(IntervalTree::compare);
+        return new IntervalTree(PersistentTreap.build(sorted, Node::new));
+    }
+
+    /**
+     * Returns a tree that also holds the event. An event with the same start and id takes its place.
+     *
+     * @param event The event to add.
+     * @return The new tree.
+     */
+    IntervalTree add(Event event) {
+        Node leaf = new Node(event, PersistentTreap.randomPriority(), null, null);
+        return new IntervalTree(PersistentTreap.insert(root, leaf, IntervalTree::compare));
+    }
+
+    /**
+     * Returns a tree without the event.
+     *
+     * @param event The event to remove.
+     * @return The new tree.
+     */
+    IntervalTree remove(Event event) {
+        return new IntervalTree(PersistentTreap.delete(root, event, IntervalTree::compare));
+    }
+
+    /**
+     * Returns the events that overlap the given window, ordered by start time.
+     *
+     * @param from The start of the window.
+     * @param to The end of the window, exclusive.
+     * @return The overlapping events.
+     */
+    List<Event> findOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<Event> found = new ArrayList<>();
+        collectOverlapping(root, from, to, found);
+        return found;
+    }
+
+    /**
+     * Returns every pair of overlapping events. Each pair is listed once, as the earlier-starting event
+     * followed by the later one, and pairs are ordered by the start of the later event.
+     *
+     * @return The overlapping pairs.
+     */
+    List<Event[]> findAllOverlaps() {
+        Iterator<Event> events = PersistentTreap.iterator(root, event -> false);
+
+        // Sweep the events in start order, keeping those still running. Every running event clashes
+        // with the one that just started, so each step costs only the pairs it reports (plus expired ones).
+        // The running list is filtered in place, keeping its order.
+        List<Event[]> pairs = new ArrayList<>();
+        List<Event> running = new ArrayList<>();
+        while (events.hasNext()) {
+            Event event = events.next();
+            int kept = 0;
+            for (int i = 0; i < running.size(); i++) {
+                Event other = running.get(i);
+                if (end(other).isAfter(start(event))) {
+                    pairs.add(new Event[]{other, event});
+                    running.set(kept++, other);
+                }
+            }
+            running.subList(kept, running.size()).clear();
+            running.add(event);
+        }
+        return pairs;
+    }
+
+    /**
+     * Returns the gaps between events within the given window.
+     *
+     * @param from The start of the window.
+     * @param to The end of the window.
+     * @return The free slots as [start, end] pairs, in time order.
+     */
+    List<LocalDateTime[]> findFreeSlots(LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime[]> slots = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (Event event : findOverlapping(from, to)) {
+            if (start(event).isAfter(freeFrom)) {
+                slots.add(new LocalDateTime[]{freeFrom, start(event)});
+            }
+            if (end(event).isAfter(freeFrom)) {
+                freeFrom = end(event);
+            }
+        }
+        if (freeFrom.isBefore(to)) {
+            slots.add(new LocalDateTime[]{freeFrom, to});
+        }
+        return slots;
+    }
+
+    static LocalDateTime start(Event event) {
+        return event.getScheduledTime();
+    }
+
+    /**
+     * Returns the end of the event, treating an event that ends before it starts as a point in time.
+     */
+    static LocalDateTime end(Event event) {
+        return event.to.isBefore(event.from) ? event.from : event.to;
+    }
+
+    private static void collectOverlapping(Node node, LocalDateTime from, LocalDateTime to, List<Event> found) {
+        if (node == null || !node.maxEnd.isAfter(from)) {
+            return; // Everything in this subtree ends before the window opens.
+        }
+        collectOverlapping(node.left, from, to, found);
+        if (!start(node.element).isBefore(to)) {
+            return; // This event and everything to its right start after the window closes.
+        }
+        if (end(node.element).isAfter(from)) {
+            found.add(node.element);
+        }
+        collectOverlapping(node.right, from, to, found);
+    }
+
+    private static int compare(Event a, Event b) {
+        int byStart = start(a).compareTo(start(b));
+        return byStart != 0 ? byStart : Long.compare(a.getId(), b.getId());
+    }
+
+    /**
+     * An immutable tree node holding one event and the latest end time in its subtree.
+     */
+    private static class Node extends PersistentTreap.Node<Event, Node> {
+        private final LocalDateTime maxEnd;
+
+        Node(Event event, int priority, Node left, Node right) {
+            super(event, priority, left, right);
+            LocalDateTime latest = end(event);
+            if (left != null && left.maxEnd.isAfter(latest)) {
+                latest = left.maxEnd;
+            }
+            if (right != null && right.maxEnd.isAfter(latest)) {
+                latest = right.maxEnd;
+            }
+            this.maxEnd = latest;
+        }
+
+        @Override
+        protected Node with(Event event, Node left, Node right) {
+            return new Node(event, priority, left, right);
+        }
+    }
+}
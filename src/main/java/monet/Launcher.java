@@ -1,12 +1,293 @@
 package monet;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import javafx.application.Application;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
 
 /**
  * A launcher class to workaround classpath issues.
+ *
+ * Also runs one-shot maintenance commands on the data file instead of starting the GUI:
+ * - --migrate [file]: rewrites the data file in the compact binary format.
+ * - --export [output] [file]: writes a copy of the data file in the text format.
+ * - --batch [commands] [file]: runs the commands in a file, or on standard input if it is "-", without the GUI.
+ * - --serve [port] [file]: serves the data file to local clients over HTTP until the process is stopped, and
+ *   prints a reminder whenever a deadline or event draws near.
+ * - --serve-users [port] [directory] [capacity]: serves a separate data file to each user, see TenantRegistry.
+ * - --load-test [port] [clients] [requests] [command]...: measures a running server, see LoadTest.
+ * - --generate-workload [directory] [tasks] [commands] [mix] [seed]: writes a data file and commands, see Workload.
+ * - --perf-gate [baseline] [--update]: fails if a generated workload runs slower than before, see PerformanceGate.
+ *
+ * Any of these, or the GUI, can be preceded by --record [file.jfr] to run a Java Flight Recorder recording
+ * alongside, with Monet's own events (see FlightRecorderEvents). The recording keeps only the latest data, up
+ * to RECORDING_MAX_BYTES, and is written to the file when the process exits. It is named "monet", so that
+ * jcmd [pid] JFR.dump name=monet can also write it out while Monet keeps running.
  */
 public class Launcher {
+    /** The most data a recording started with --record keeps on disk before discarding the oldest. */
+    public static final long RECORDING_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final String DEFAULT_USERS_DIRECTORY = "./data/users";
+    private static final String DEFAULT_RECORDING_PATH = "./data/monet.jfr";
+    private static final String RECORDING_SUFFIX = ".jfr";
+
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--record")) {
+            boolean hasPath = args.length > 1 && args[1].endsWith(RECORDING_SUFFIX);
+            startRecording(hasPath ? args[1] : DEFAULT_RECORDING_PATH);
+            args = Arrays.copyOfRange(args, hasPath ? 2 : 1, args.length);
+        }
+        if (args.length > 0 && args[0].equals("--migrate")) {
+            System.exit(migrate(args.length > 1 ? args[1] : Monet.DEFAULT_FILE_PATH));
+        } else if (args.length > 1 && args[0].equals("--export")) {
+            System.exit(export(args[1], args.length > 2 ? args[2] : Monet.DEFAULT_FILE_PATH));
+        } else if (args.length > 1 && args[0].equals("--batch")) {
+            System.exit(batch(args[1], args.length > 2 ? args[2] : Monet.DEFAULT_FILE_PATH));
+        } else if (args.length > 0 && args[0].equals("--serve")) {
+            serve(args);
+            return;
+        } else if (args.length > 0 && args[0].equals("--serve-users")) {
+            serveUsers(args);
+            return;
+        } else if (args.length > 3 && args[0].equals("--load-test")) {
+            System.exit(loadTest(args));
+        } else if (args.length > 1 && args[0].equals("--generate-workload")) {
+            System.exit(generateWorkload(args));
+        } else if (args.length > 1 && args[0].equals("--perf-gate")) {
+            System.exit(perfGate(args[1], args.length > 2 && args[2].equals("--update")));
+        }
         Application.launch(Main.class, args);
     }
+
+    /**
+     * Starts a continuous recording with the JDK's default settings, whose overhead is low enough to leave it
+     * running. Monet still starts if the recording cannot, as it is only there to diagnose problems.
+     *
+     * @param recordingPath The file the recording is written to on exit.
+     */
+    private static void startRecording(String recordingPath) {
+        try {
+            Path destination = Path.of(recordingPath).toAbsolutePath();
+            destination.getParent().toFile().mkdirs();
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("monet");
+            recording.setToDisk(true);
+            recording.setMaxSize(RECORDING_MAX_BYTES);
+            recording.setDestination(destination);
+            recording.setDumpOnExit(true);
+            recording.start();
+            System.out.println("Recording to " + recordingPath + " until Monet exits.");
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            System.out.println("Alas! Couldst not start the recording: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites the data file in the binary format. Its journal is folded into the new snapshot.
+     *
+     * @param filePath The data file to migrate.
+     * @return The process exit code.
+     */
+    private static int migrate(String filePath) {
+        if (!new File(filePath).isFile()) {
+            System.out.println("Alas! Th're is no data fileth at " + filePath + " to migrate.");
+            return 1;
+        }
+        Storage storage = new Storage(filePath);
+        try {
+            ArrayList<Task> tasks = storage.load();
+            if (storage.getFormat() == Storage.Format.BINARY) {
+                System.out.println(filePath + " is already in the binary format.");
+                return 0;
+            }
+            storage.setFormat(Storage.Format.BINARY);
+            storage.save(tasks);
+            storage.close();
+            System.out.println("Migrated " + tasks.size() + " tasks in " + filePath + " to the binary format.");
+            return 0;
+        } catch (MonetException | IOException e) {
+            System.out.println("Alas! " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Writes the tasks in the data file, whatever its format, to another file in the text format.
+     *
+     * @param exportPath The text file to write.
+     * @param filePath The data file to export.
+     * @return The process exit code.
+     */
+    private static int export(String exportPath, String filePath) {
+        Storage storage = new Storage(filePath);
+        try {
+            ArrayList<Task> tasks = storage.load();
+            storage.exportText(tasks, exportPath);
+            System.out.println("Exported " + tasks.size() + " tasks to " + exportPath + ".");
+            return 0;
+        } catch (MonetException | IOException e) {
+            System.out.println("Alas! " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Runs a script of commands against the data file and prints every response.
+     * The changes are saved in one go once the script ends.
+     *
+     * @param commandPath The file of commands, one per line, or "-" to read them from standard input.
+     * @param filePath The data file to run the commands against.
+     * @return The process exit code.
+     */
+    private static int batch(String commandPath, String filePath) {
+        Monet monet = new Monet(filePath);
+        Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try (InputStream in = commandPath.equals("-") ? System.in : new FileInputStream(commandPath);
+                BufferedReader input = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+            monet.runBatch(input, output);
+            return 0;
+        } catch (IOException e) {
+            System.out.println("Alas! " + e.getMessage());
+            return 1;
+        } finally {
+            monet.shutdown();
+        }
+    }
+
+    /**
+     * Starts serving the data file over HTTP. The server runs until the process is stopped,
+     * at which point pending changes are written out.
+     *
+     * @param args The command line: --serve [port] [file].
+     */
+    private static void serve(String[] args) {
+        try {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : MonetServer.DEFAULT_PORT;
+            String filePath = args.length > 2 ? args[2] : Monet.DEFAULT_FILE_PATH;
+            Monet monet = new Monet(filePath);
+            monet.getMetrics().register(filePath);
+            monet.startReminders(System.out::println); // There is no window to show them in.
+            MonetServer server = new MonetServer(monet, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            server.start();
+            System.out.println("Monet is listening on port " + server.getPort() + ".");
+        } catch (NumberFormatException | IOException e) {
+            System.out.println("Alas! " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Starts serving one task list per user over HTTP, until the process is stopped. At that point the lists
+     * still in memory are written back.
+     *
+     * @param args The command line: --serve-users [port] [directory] [capacity].
+     */
+    private static void serveUsers(String[] args) {
+        try {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : MonetServer.DEFAULT_PORT;
+            String directory = args.length > 2 ? args[2] : DEFAULT_USERS_DIRECTORY;
+            int capacity = args.length > 3 ? Integer.parseInt(args[3]) : TenantRegistry.DEFAULT_CAPACITY;
+            if (capacity < 1) {
+                throw new NumberFormatException("At least one list must fit in memory.");
+            }
+            TenantRegistry registry = new TenantRegistry(directory, capacity);
+            registry.getMetrics().register(directory);
+            MonetServer server = new MonetServer(registry, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            server.start();
+            System.out.println("Monet is listening on port " + server.getPort() + " f'r " + directory + ".");
+        } catch (NumberFormatException | IOException e) {
+            System.out.println("Alas! " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Writes a generated data file and a stream of commands for it, which --batch can run.
+     *
+     * @param args The command line: --generate-workload [directory] [tasks] [commands] [mix] [seed].
+     * @return The process exit code.
+     */
+    private static int generateWorkload(String[] args) {
+        try {
+            int taskCount = args.length > 2 ? Integer.parseInt(args[2]) : PerformanceGate.DEFAULT_TASKS;
+            int commandCount = args.length > 3 ? Integer.parseInt(args[3]) : PerformanceGate.DEFAULT_COMMANDS;
+            int[] mix = args.length > 4 ? Workload.parseMix(args[4]) : Workload.DEFAULT_MIX;
+            long seed = args.length > 5 ? Long.parseLong(args[5]) : PerformanceGate.DEFAULT_SEED;
+            if (taskCount < 0 || commandCount < 0) {
+                throw new NumberFormatException("The numbers of tasks and commands cannot beest negative.");
+            }
+            Workload workload = new Workload(seed, mix);
+            File dataFile = new File(args[1], "monet.txt");
+            File commandFile = new File(args[1], "commands.txt");
+            workload.writeDataFile(dataFile, taskCount);
+            workload.writeCommands(commandFile, taskCount, commandCount);
+            System.out.println("Wrote " + taskCount + " tasks to " + dataFile.getPath() + " and " + commandCount
+                    + " commands to " + commandFile.getPath() + ".");
+            return 0;
+        } catch (NumberFormatException | IOException e) {
+            System.out.println("Alas! " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Replays a generated workload and prints how it compares with the baseline.
+     *
+     * @param baselinePath The baseline file. If it does not exist, the gate fails unless isUpdate is set.
+     * @param isUpdate Whether to record a new baseline instead of comparing.
+     * @return The process exit code, which is 1 if Monet has become slower or there is no baseline.
+     */
+    private static int perfGate(String baselinePath, boolean isUpdate) {
+        try {
+            StringBuilder report = new StringBuilder();
+            boolean isPassed = new PerformanceGate(new File(baselinePath)).run(isUpdate, report);
+            System.out.println(report);
+            return isPassed ? 0 : 1;
+        } catch (NumberFormatException | IOException e) {
+            System.out.println("Alas! " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Runs a load test against a server started with --serve and prints the report.
+     *
+     * @param args The command line: --load-test [port] [clients] [requests] [command]...
+     * @return The process exit code.
+     */
+    private static int loadTest(String[] args) {
+        try {
+            List<String> commands = args.length > 4
+                    ? List.of(args).subList(4, args.length)
+                    : LoadTest.DEFAULT_COMMANDS;
+            LoadTest test = new LoadTest(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                    Integer.parseInt(args[3]), commands);
+            System.out.println(test.run());
+            return 0;
+        } catch (NumberFormatException | IOException e) {
+            System.out.println("Alas! " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
 }
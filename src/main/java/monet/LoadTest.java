@@ -0,0 +1,128 @@
+package monet;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how a running MonetServer holds up under several clients sending commands at once.
+ *
+ * Each client thread sends its share of requests back to back, cycling through the given commands, and
+ * records how long each one took. The first tenth of every client's requests warms the server up and is
+ * not counted. The report gives the overall throughput and the latency percentiles.
+ */
+class LoadTest {
+    /** The commands sent when none are given. They only read the list, so the data file is left alone. */
+    static final List<String> DEFAULT_COMMANDS = List.of("find book", "priority 1", "upcoming 5");
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final URI uri;
+    private final int clientCount;
+    private final int requestsPerClient;
+    private final List<String> commands;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Constructs a load test against a server on this machine.
+     *
+     * @param port The port the server listens on.
+     * @param clientCount The number of clients sending requests at the same time.
+     * @param requestsPerClient The number of requests each client sends.
+     * @param commands The commands to send, in turn.
+     */
+    LoadTest(int port, int clientCount, int requestsPerClient, List<String> commands) {
+        assert clientCount > 0 && requestsPerClient > 0 : "Load test needs clients and requests";
+        assert !commands.isEmpty() : "Load test needs commands to send";
+        this.uri = URI.create("http://localhost:" + port + MonetServer.COMMAND_PATH);
+        this.clientCount = clientCount;
+        this.requestsPerClient = requestsPerClient;
+        this.commands = commands;
+    }
+
+    /**
+     * Runs the test and returns the report.
+     *
+     * @return The throughput and latency percentiles, one per line.
+     * @throws IOException If a client cannot reach the server.
+     * @throws InterruptedException If the test is interrupted.
+     */
+    String run() throws IOException, InterruptedException {
+        int warmUp = requestsPerClient / 10;
+        int measured = requestsPerClient - warmUp;
+        long[] latencies = new long[clientCount * measured];
+        IOException[] errors = new IOException[clientCount];
+        Thread[] clients = new Thread[clientCount];
+        long startTime = System.nanoTime();
+        for (int c = 0; c < clientCount; c++) {
+            int clientIndex = c;
+            clients[c] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        long latency = send(commands.get((clientIndex + i) % commands.size()));
+                        if (i >= warmUp) {
+                            latencies[clientIndex * measured + i - warmUp] = latency;
+                        }
+                    }
+                } catch (IOException e) {
+                    errors[clientIndex] = e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            clients[c].start();
+        }
+        for (Thread thread : clients) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+        for (IOException error : errors) {
+            if (error != null) {
+                throw error;
+            }
+        }
+        return report(latencies, elapsedNanos);
+    }
+
+    /**
+     * Sends one command and returns the time until its whole response arrived, in nanoseconds.
+     */
+    private long send(String command) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(command)).build();
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        long latency = System.nanoTime() - start;
+        if (response.statusCode() != 200) {
+            failures.incrementAndGet();
+        }
+        return latency;
+    }
+
+    private String report(long[] latencies, long elapsedNanos) {
+        Arrays.sort(latencies);
+        int total = clientCount * requestsPerClient;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d requests from %d clients in %.2f s: %.0f requests/s%n",
+                total, clientCount, elapsedNanos / 1e9, total / (elapsedNanos / 1e9)));
+        if (failures.get() > 0) {
+            sb.append(String.format("%d requests failed%n", failures.get()));
+        }
+        for (double percentile : PERCENTILES) {
+            int rank = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            sb.append(String.format("p%s latency: %.3f ms%n", formatPercentile(percentile),
+                    latencies[Math.max(rank, 0)] / 1e6));
+        }
+        sb.append(String.format("max latency: %.3f ms", latencies[latencies.length - 1] / 1e6));
+        return sb.toString();
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.floor(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile);
+    }
+}
@@ -15,7 +15,8 @@ import monet.gui.MainWindow;
 public class Main extends Application {
 
     // Instantiate the Monet application logic
-    private Monet monet = new Monet("./data/monet.txt");
+    private Monet monet = new Monet(Monet.DEFAULT_FILE_PATH);
+    private MainWindow mainWindow;
 
     @Override
     public void start(Stage stage) {
@@ -27,10 +28,21 @@ public class Main extends Application {
             stage.setScene(scene);
 
             // Give the controller access to the Monet instance
-            fxmlLoader.<MainWindow>getController().setMonet(monet);
+            mainWindow = fxmlLoader.getController();
+            mainWindow.setMonet(monet);
             stage.show();
+            monet.getMetrics().register(Monet.DEFAULT_FILE_PATH); // Lets JConsole show where the time goes.
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    @Override
+    public void stop() {
+        // Let the commands still queued in the window finish, then flush their changes to the data file.
+        if (mainWindow != null) {
+            mainWindow.shutdown();
+        }
+        monet.shutdown();
+    }
 }
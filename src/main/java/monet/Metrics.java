@@ -0,0 +1,239 @@
+package monet;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Measures where the time of each command goes, and how much the data file costs to keep up to date.
+ *
+ * Every command is timed as a whole and in four phases: parsing the input, executing it on the list, persisting
+ * the change, and rendering the response. Each command type and phase has its own LatencyHistogram, so the
+ * figures can be read back as percentiles. Storage adds the number of bytes it writes, and how long each
+ * snapshot save and journal write takes.
+ *
+ * Commands may be timed on several threads at once. Each thread times its command with a Timer of its own,
+ * which is reused for every command it runs, so timing a command neither locks nor allocates.
+ * The figures can be read with the stats command, or over JMX once register() has been called.
+ */
+public class Metrics implements MetricsMBean {
+    /** The domain and type of the JMX names that metrics are registered under. */
+    public static final String OBJECT_NAME_PREFIX = "monet:type=Metrics,name=";
+
+    private static final Command[] COMMANDS = Command.values();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[COMMANDS.length];
+    private final LatencyHistogram[][] phaseLatencies = new LatencyHistogram[COMMANDS.length][PHASES.length];
+    private final LatencyHistogram saves = new LatencyHistogram();
+    private final LatencyHistogram journalWrites = new LatencyHistogram();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final ThreadLocal<Timer> timers = ThreadLocal.withInitial(Timer::new);
+    private ObjectName objectName;
+
+    /**
+     * Constructs metrics with nothing recorded yet.
+     */
+    public Metrics() {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            for (int j = 0; j < PHASES.length; j++) {
+                phaseLatencies[i][j] = new LatencyHistogram();
+            }
+        }
+    }
+
+    /**
+     * Starts timing a command on the calling thread, in the parse phase.
+     */
+    void startCommand() {
+        timers.get().start(System.nanoTime());
+    }
+
+    /**
+     * Moves the command being timed on the calling thread to another phase. The time since the last change
+     * of phase counts towards the phase it was in; a command may enter the same phase more than once.
+     *
+     * @param phase The phase the command is now in.
+     */
+    void startPhase(Phase phase) {
+        timers.get().enter(phase, System.nanoTime());
+    }
+
+    /**
+     * Stops timing the command on the calling thread and records its latency, and that of every phase it
+     * went through, under the given command type.
+     *
+     * @param command The type of the command, which is only known once parsing has begun.
+     */
+    void finishCommand(Command command) {
+        timers.get().finish(System.nanoTime(), command);
+    }
+
+    /**
+     * Records a snapshot written to the data file.
+     *
+     * @param bytes The size of the snapshot and its fresh journal.
+     * @param nanos How long it took to write and fsync them.
+     */
+    void recordSave(long bytes, long nanos) {
+        bytesWritten.addAndGet(bytes);
+        saves.record(nanos);
+    }
+
+    /**
+     * Records a batch of records appended to the journal.
+     *
+     * @param bytes The number of bytes appended.
+     * @param nanos How long it took to append and fsync them.
+     */
+    void recordJournalWrite(long bytes, long nanos) {
+        bytesWritten.addAndGet(bytes);
+        journalWrites.record(nanos);
+    }
+
+    /**
+     * Returns the latencies of one command type, from start to finish.
+     *
+     * @param command The command type.
+     * @return The histogram of the command's latencies.
+     */
+    LatencyHistogram getLatency(Command command) {
+        return latencies[command.ordinal()];
+    }
+
+    /**
+     * Returns the time one command type spent in one phase. Commands that never entered the phase are
+     * not counted.
+     *
+     * @param command The command type.
+     * @param phase The phase.
+     * @return The histogram of the time spent in the phase.
+     */
+    LatencyHistogram getLatency(Command command, Phase phase) {
+        return phaseLatencies[command.ordinal()][phase.ordinal()];
+    }
+
+    LatencyHistogram getSaves() {
+        return saves;
+    }
+
+    LatencyHistogram getJournalWrites() {
+        return journalWrites;
+    }
+
+    /**
+     * Makes these metrics readable over JMX, under monet:type=Metrics,name=[name], for as long as the process
+     * runs. Does nothing if the name is already taken, as the metrics are optional. Starting the JMX server
+     * takes a moment, so only long-running processes call this.
+     *
+     * @param name The name that tells these metrics apart from those of other instances.
+     */
+    public synchronized void register(String name) {
+        if (objectName != null) {
+            return;
+        }
+        try {
+            ObjectName newName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newName);
+            objectName = newName;
+        } catch (JMException e) {
+            // The stats command still shows the metrics.
+        }
+    }
+
+    @Override
+    public long getCommandCount() {
+        long count = 0;
+        for (LatencyHistogram latency : latencies) {
+            count += latency.getCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    @Override
+    public long getSaveCount() {
+        return saves.getCount();
+    }
+
+    @Override
+    public double getMeanSaveMillis() {
+        return saves.getMeanNanos() / 1e6;
+    }
+
+    @Override
+    public long getJournalWriteCount() {
+        return journalWrites.getCount();
+    }
+
+    @Override
+    public long getCount(String command) {
+        return getLatency(Command.valueOf(command.toUpperCase(Locale.ROOT))).getCount();
+    }
+
+    @Override
+    public double getPercentileMillis(String command, String phase, double percentile) {
+        Command type = Command.valueOf(command.toUpperCase(Locale.ROOT));
+        LatencyHistogram latency = phase.equalsIgnoreCase("total")
+                ? getLatency(type)
+                : getLatency(type, Phase.valueOf(phase.toUpperCase(Locale.ROOT)));
+        return latency.getPercentileNanos(percentile) / 1e6;
+    }
+
+    /**
+     * The phases a command goes through.
+     */
+    enum Phase {
+        PARSE,
+        EXECUTE,
+        PERSIST,
+        RENDER
+    }
+
+    /**
+     * Times the command running on one thread. Only that thread ever touches it.
+     */
+    private class Timer {
+        private final long[] phaseNanos = new long[PHASES.length];
+        private final boolean[] isEntered = new boolean[PHASES.length];
+        private long startedAt;
+        private long phaseStartedAt;
+        private int phase;
+
+        void start(long now) {
+            startedAt = now;
+            phaseStartedAt = now;
+            phase = Phase.PARSE.ordinal();
+            for (int i = 0; i < PHASES.length; i++) {
+                phaseNanos[i] = 0;
+                isEntered[i] = false;
+            }
+            isEntered[phase] = true;
+        }
+
+        void enter(Phase next, long now) {
+            phaseNanos[phase] += now - phaseStartedAt;
+            phaseStartedAt = now;
+            phase = next.ordinal();
+            isEntered[phase] = true;
+        }
+
+        void finish(long now, Command command) {
+            phaseNanos[phase] += now - phaseStartedAt;
+            int type = command.ordinal();
+            latencies[type].record(now - startedAt);
+            for (int i = 0; i < PHASES.length; i++) {
+                if (isEntered[i]) {
+                    phaseLatencies[type][i].record(phaseNanos[i]);
+                }
+            }
+        }
+    }
+}
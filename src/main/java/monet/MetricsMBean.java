@@ -0,0 +1,60 @@
+package monet;
+
+/**
+ * The view of Metrics that JMX clients such as JConsole see.
+ * Command types and phases are given by name, in any letter case; the phase "total" means the whole command.
+ */
+public interface MetricsMBean {
+    /**
+     * Returns the number of commands timed so far.
+     *
+     * @return The number of commands of every type.
+     */
+    long getCommandCount();
+
+    /**
+     * Returns the number of bytes written to the data file and its journal.
+     *
+     * @return The number of bytes.
+     */
+    long getBytesWritten();
+
+    /**
+     * Returns the number of snapshots written to the data file.
+     *
+     * @return The number of saves.
+     */
+    long getSaveCount();
+
+    /**
+     * Returns how long writing a snapshot took on average.
+     *
+     * @return The mean in milliseconds, or 0 before the first save.
+     */
+    double getMeanSaveMillis();
+
+    /**
+     * Returns the number of batches of changes appended to the journal.
+     *
+     * @return The number of journal writes.
+     */
+    long getJournalWriteCount();
+
+    /**
+     * Returns the number of commands of one type timed so far.
+     *
+     * @param command The name of the command type, e.g. "find".
+     * @return The number of commands.
+     */
+    long getCount(String command);
+
+    /**
+     * Returns a latency percentile of one command type.
+     *
+     * @param command The name of the command type, e.g. "find".
+     * @param phase The name of the phase, e.g. "execute", or "total".
+     * @param percentile The percentile, from 0 to 100.
+     * @return The latency in milliseconds, or 0 if no such command was timed.
+     */
+    double getPercentileMillis(String command, String phase, double percentile);
+}
@@ -1,29 +1,65 @@
 package monet;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Writer;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 /**
  * Main class for the Monet chatbot application.
  * Supports a GUI interface using the UI class for displayed messages.
  */
 public class Monet {
+    /** The data file used when no other path is given. */
+    public static final String DEFAULT_FILE_PATH = "./data/monet.txt";
 
     private final Storage storage;
     private TaskList tasks;
     private final Ui ui;
+    private final History history = new History(History.DEFAULT_LIMIT);
+    private final Metrics metrics;
+    // Changes take turns when several clients share this instance. Queries only take the read lock on a
+    // columnar list, which is changed in place; other lists give them a snapshot instead.
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Null until startReminders(); kept in step with the list by every change, under the write lock.
+    private volatile ReminderScheduler reminders;
 
     /**
      * Constructor for Monet.
      * @param filePath The path to the file where tasks are stored.
      */
     public Monet(String filePath) {
-        ui = new Ui(); // Instantiate the Ui class
-        storage = new Storage(filePath);
+        this(filePath, new Ui(), new Metrics()); // Instantiate the Ui class
+    }
+
+    /**
+     * Constructs a Monet that formats its responses with a Ui, and records its timings in metrics, that may be
+     * shared with other instances.
+     *
+     * @param filePath The path to the file where tasks are stored.
+     * @param ui The Ui used to format responses.
+     * @param metrics Where the latency of each command and the writes to the data file are recorded.
+     */
+    Monet(String filePath, Ui ui, Metrics metrics) {
+        this.ui = ui;
+        this.metrics = metrics;
+        storage = new Storage(filePath, metrics);
+        ArrayList<Task> loadedTasks;
         try {
-            tasks = new TaskList(storage.load());
+            loadedTasks = storage.load();
         } catch (MonetException e) {
-            tasks = new TaskList();
+            loadedTasks = new ArrayList<>();
         }
+        // Very long lists can be held in compact columns instead of one object per task.
+        tasks = Boolean.getBoolean(TaskList.COLUMNAR_PROPERTY)
+                ? TaskList.columnar(loadedTasks)
+                : new TaskList(loadedTasks);
     }
 
     /**
@@ -34,21 +70,185 @@ public class Monet {
         return ui.getWelcomeMessage();
     }
 
+    /**
+     * Returns the metrics that this instance records its commands and writes in.
+     *
+     * @return The metrics, which the stats command also shows.
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Starts reminding the user of each deadline and event that is not done yet, a while before its time, for
+     * as long as this instance runs; see ReminderScheduler. The lead time is read from the
+     * monet.reminders.leadMinutes system property, and is 15 minutes if it is not set.
+     * Should be called at most once, by the long-running front ends.
+     *
+     * @param listener Receives the text of each reminder, on the reminder thread.
+     */
+    public void startReminders(Consumer<String> listener) {
+        long leadMinutes = Math.max(0, Long.getLong(ReminderScheduler.LEAD_MINUTES_PROPERTY,
+                ReminderScheduler.DEFAULT_LEAD_MINUTES));
+        lock.writeLock().lock();
+        try {
+            assert reminders == null : "Reminders have already been started";
+            reminders = new ReminderScheduler(leadMinutes, Clock.systemDefaultZone(),
+                    task -> listener.accept(ui.getReminderMessage(task)));
+            reminders.reset(tasks.getTasks());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes out any pending changes and stops the background storage writer, and the reminders if they
+     * were started. If a failed write has left a save due, the whole list is saved first. Should be called once
+     * when the application exits.
+     */
+    public void shutdown() {
+        if (reminders != null) {
+            reminders.shutdown();
+        }
+        lock.writeLock().lock();
+        try {
+            compactIfDue(); // A change whose journal write failed is only on disk once the list is saved.
+            storage.close();
+        } catch (IOException e) {
+            System.out.println(ui.getErrorMessage(e.getMessage()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Folds the changes made since the data file was last saved into a new snapshot, then shuts down like
+     * shutdown(). Used when a list is let go of while the process keeps running, so that loading it again
+     * needs no journal replay.
+     *
+     * @return True if there were changes to fold in.
+     */
+    public boolean saveAndShutdown() {
+        boolean hasChanges = false;
+        lock.writeLock().lock();
+        try {
+            hasChanges = storage.hasJournalRecords();
+            if (hasChanges) {
+                storage.save(tasks.getTasks());
+            }
+        } catch (IOException e) {
+            System.out.println(ui.getErrorMessage(e.getMessage()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        shutdown();
+        return hasChanges;
+    }
+
+    /**
+     * Runs every command read from the input, one per line, and writes each response to the output.
+     * Stops at the end of the input or after a 'bye' command. Instead of journaling every change,
+     * the whole list is saved once at the end, which makes importing a long script fast.
+     *
+     * @param input The commands to run.
+     * @param output Where the responses are written, each followed by a line separator.
+     * @throws IOException If there is an error reading the commands, writing the responses or saving the tasks.
+     */
+    public void runBatch(BufferedReader input, Writer output) throws IOException {
+        storage.deferChanges();
+        try {
+            String line;
+            while ((line = input.readLine()) != null) {
+                Command command = Parser.parseCommand(line);
+                output.write(getResponse(command, line));
+                output.write(System.lineSeparator());
+                if (command == Command.BYE) {
+                    break;
+                }
+            }
+        } finally {
+            storage.saveDeferredChanges(tasks.getTasks());
+            output.flush();
+        }
+    }
+
     /**
      * Processes user input and returns the chatbot's response as a string using Ui class.
      * Main entry point for the GUI.
      *
+     * May be called from several threads at once. Commands that change the list run one at a time, while
+     * commands that only read it work on a snapshot of the list and never wait for them.
+     *
+     * Every command is timed in metrics, phase by phase. Waiting for a change to finish counts as executing.
+     * A Java Flight Recorder recording, if one is running, gets a CommandEvent as well.
+     *
      * @param input The user's input string.
      * @return The chatbot's response string.
      */
     public String getResponse(String input) {
+        return getResponse(Parser.parseCommand(input), input);
+    }
+
+    /**
+     * Runs a command whose keyword has already been parsed from the input, like getResponse(String).
+     */
+    private String getResponse(Command command, String input) {
+        FlightRecorderEvents.CommandEvent event = FlightRecorderEvents.CommandEvent.beginIfEnabled();
+        metrics.startCommand();
+        try {
+            metrics.startPhase(Metrics.Phase.EXECUTE);
+            if (!isChange(command) && !tasks.isColumnar()) {
+                return runCommand(command, input, tasks.snapshot());
+            }
+            Lock commandLock = isChange(command) ? lock.writeLock() : lock.readLock();
+            commandLock.lock();
+            try {
+                return runCommand(command, input, tasks);
+            } finally {
+                commandLock.unlock();
+            }
+        } finally {
+            metrics.finishCommand(command);
+            if (event != null) {
+                event.finish(command, tasks);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the command changes the task list or the data file.
+     */
+    private static boolean isChange(Command command) {
+        switch (command) {
+        case MARK:
+        case UNMARK:
+        case DELETE:
+        case TODO:
+        case DEADLINE:
+        case EVENT:
+        case UNDO:
+        case REDO:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Runs a command. Queries read the given list, which is either the task list or a snapshot of it.
+     * Each handler marks in metrics where it moves from one phase to the next.
+     */
+    private String runCommand(Command command, String input, TaskList list) {
         try {
-            Command command = Parser.parseCommand(input);
             switch (command) {
             case BYE:
+                metrics.startPhase(Metrics.Phase.PERSIST);
+                storage.flush(); // Make sure every change is on disk before the user leaves.
+                metrics.startPhase(Metrics.Phase.RENDER);
                 return ui.getGoodbyeMessage();
             case LIST:
-                return ui.getTaskListMessage(tasks);
+                metrics.startPhase(Metrics.Phase.RENDER);
+                return ui.getTaskListMessage(list);
             case MARK:
             case UNMARK:
                 return handleMarkUnmark(command, input);
@@ -59,20 +259,54 @@ public class Monet {
             case EVENT:
                 return handleAddTask(command, input);
             case FIND:
-                return handleFind(input);
+                return handleFind(list, input);
             case PRIORITY: // NEW: Handle the priority command
-                return handlePriority(input);
+                return handlePriority(list, input);
+            case DUE:
+                return handleDue(list, input);
+            case UPCOMING:
+                return handleUpcoming(list, input);
+            case CONFLICTS:
+                return handleConflicts(list);
+            case FREE:
+                return handleFree(list, input);
+            case UNDO:
+            case REDO:
+                return handleUndoRedo(command, input);
+            case STATS:
+                metrics.startPhase(Metrics.Phase.RENDER);
+                return ui.getStatsMessage(metrics);
             default:
                 return "I knoweth not what yond means.  Prithee checketh thy did input!";
             }
-        } catch (MonetException | IOException e) {
+        } catch (IOException e) {
+            if (isChange(command)) {
+                saveAfterFailedWrite();
+            }
+            metrics.startPhase(Metrics.Phase.RENDER);
+            return ui.getErrorMessage(e.getMessage());
+        } catch (MonetException e) {
+            metrics.startPhase(Metrics.Phase.RENDER);
             return ui.getErrorMessage(e.getMessage());
         }
     }
 
+    /**
+     * Saves the whole list straight away after a write has failed, if that made a save due. The change that
+     * failed to be journaled is already in the list, so without the save it would be lost on exit.
+     * Only called with the write lock held.
+     */
+    private void saveAfterFailedWrite() {
+        try {
+            compactIfDue();
+        } catch (IOException e) {
+            System.out.println(ui.getErrorMessage(e.getMessage()));
+        }
+    }
+
     /**
      * Parses the user input for a new task, adds it to the task list,
-     * shows a confirmation to the user, and saves the updated list to the file.
+     * shows a confirmation to the user, and records the new task in storage.
      *
      * @param command The type of task to add (TODO, DEADLINE, or EVENT).
      * @param fullCommand The full user input string.
@@ -80,40 +314,44 @@ public class Monet {
      * @throws IOException If there is an error saving the tasks to the file.
      */
     private String handleAddTask(Command command, String fullCommand) throws MonetException, IOException {
+        metrics.startPhase(Metrics.Phase.PARSE);
         Task newTask;
 
         // Parse the user input to create the correct task type.
         switch (command) {
         case TODO: {
-            Object[] todoDetails = Parser.parseTodo(fullCommand);
-            String description = (String) todoDetails[0];
-            Priority priority = (Priority) todoDetails[1];
-            newTask = new Todo(description, priority);
+            Parser.TodoArgs todo = Parser.parseTodo(fullCommand);
+            newTask = new Todo(todo.description(), todo.priority());
             break;
         }
         case DEADLINE: {
-            Object[] deadlineDetails = Parser.parseDeadline(fullCommand);
-            String description = (String) deadlineDetails[0];
-            String byString = (String) deadlineDetails[1];
-            Priority priority = (Priority) deadlineDetails[2];
-            newTask = new Deadline(description, byString, priority);
+            Parser.DeadlineArgs deadline = Parser.parseDeadline(fullCommand);
+            newTask = new Deadline(deadline.description(), deadline.by(), deadline.priority());
             break;
         }
         case EVENT: {
-            Object[] eventDetails = Parser.parseEvent(fullCommand);
-            String description = (String) eventDetails[0];
-            String fromString = (String) eventDetails[1];
-            String toString = (String) eventDetails[2];
-            Priority priority = (Priority) eventDetails[3];
-            newTask = new Event(description, fromString, toString, priority);
+            Parser.EventArgs event = Parser.parseEvent(fullCommand);
+            newTask = new Event(event.description(), event.from(), event.to(), event.priority());
             break;
         }
         default:
             throw new MonetException("Invalid task typeth f'r adding.");
         }
 
+        metrics.startPhase(Metrics.Phase.EXECUTE);
         tasks.addTask(newTask); // Execute the action: Add the task to the list.
-        storage.save(tasks.getTasks()); // Save the updated list to disk.
+        history.record(new History.Change(tasks.getSize() - 1, null, newTask));
+        updateReminder(newTask);
+        metrics.startPhase(Metrics.Phase.PERSIST);
+        storage.journalAdd(newTask); // Record the change on disk.
+        compactIfDue();
+        metrics.startPhase(Metrics.Phase.EXECUTE);
+        // Warn about clashes, but still add the event.
+        TaskList clashes = newTask instanceof Event ? tasks.findOverlappingEvents((Event) newTask) : null;
+        metrics.startPhase(Metrics.Phase.RENDER);
+        if (clashes != null && clashes.getSize() > 0) {
+            return ui.getEventAddedWithClashesMessage(newTask, tasks.getSize(), clashes);
+        }
         return ui.getTaskAddedMessage(newTask, tasks.getSize()); // Show UI confirmation.
     }
 
@@ -122,7 +360,7 @@ public class Monet {
      * This involves three steps:
      * 1. Parsing the user input to get the task index.
      * 2. Executing the deletion on the TaskList.
-     * 3. Saving the updated TaskList to storage.
+     * 3. Recording the deletion in the storage journal.
      *
      * @param fullCommand The full user input string (e.g., "delete 2").
      * @return A formatted confirmation message from the Ui.
@@ -130,15 +368,22 @@ public class Monet {
      * @throws IOException If there is an error saving the tasks to the file.
      */
     private String handleDelete(String fullCommand) throws MonetException, IOException {
+        metrics.startPhase(Metrics.Phase.PARSE);
         int index = Parser.parseIndex(fullCommand, tasks.getSize());
+        metrics.startPhase(Metrics.Phase.EXECUTE);
         Task deletedTask = tasks.deleteTask(index);
-        storage.save(tasks.getTasks());
+        history.record(new History.Change(index, deletedTask, null));
+        cancelReminder(deletedTask);
+        metrics.startPhase(Metrics.Phase.PERSIST);
+        storage.journalDelete(deletedTask);
+        compactIfDue();
+        metrics.startPhase(Metrics.Phase.RENDER);
         return ui.getTaskDeletedMessage(deletedTask, tasks.getSize());
     }
 
     /**
      * Parses the user input for a task index to mark or unmark, updates the task's status,
-     * shows a confirmation, and saves the changes.
+     * shows a confirmation, and records the change in storage.
      *
      * @param command The action to perform (MARK or UNMARK).
      * @param fullCommand The full user input string (e.g., "mark 1").
@@ -146,30 +391,111 @@ public class Monet {
      * @throws IOException If there is an error saving the tasks to the file.
      */
     private String handleMarkUnmark(Command command, String fullCommand) throws MonetException, IOException {
+        metrics.startPhase(Metrics.Phase.PARSE);
         int index = Parser.parseIndex(fullCommand, tasks.getSize());
-        Task task = tasks.getTask(index);
-        String response;
-        if (command == Command.MARK) {
-            task.markAsDone();
-            response = ui.getTaskMarkedMessage(task);
+        metrics.startPhase(Metrics.Phase.EXECUTE);
+        Task before = tasks.getTask(index);
+        Task task = command == Command.MARK ? tasks.markTask(index) : tasks.unmarkTask(index);
+        history.record(new History.Change(index, before, task));
+        updateReminder(task);
+        metrics.startPhase(Metrics.Phase.PERSIST);
+        storage.journalStatus(task);
+        compactIfDue();
+        metrics.startPhase(Metrics.Phase.RENDER);
+        return command == Command.MARK ? ui.getTaskMarkedMessage(task) : ui.getTaskUnmarkedMessage(task);
+    }
+
+    /**
+     * Undoes or redoes the given number of changes, or as many as there are, most recent first.
+     * Each change is journaled like the change it stands for, so nothing needs to be rewritten.
+     *
+     * @param command The action to perform (UNDO or REDO).
+     * @param fullCommand The full user input string (e.g., "undo 2").
+     * @throws MonetException If the count is invalid or there is nothing to undo or redo.
+     * @throws IOException If there is an error saving the tasks to the file.
+     */
+    private String handleUndoRedo(Command command, String fullCommand) throws MonetException, IOException {
+        metrics.startPhase(Metrics.Phase.PARSE);
+        int count = Parser.parseChangeCount(fullCommand);
+        metrics.startPhase(Metrics.Phase.EXECUTE);
+        boolean isUndo = command == Command.UNDO;
+        ArrayList<History.Change> applied = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            History.Change change = isUndo ? history.takeUndo() : history.takeRedo();
+            if (change == null) {
+                break;
+            }
+            History.Change toApply = isUndo ? change.inverse() : change;
+            applyChange(toApply);
+            applied.add(toApply);
+        }
+        if (applied.isEmpty()) {
+            throw new MonetException(isUndo ? "Th're is nothing left to undo." : "Th're is nothing left to redo.");
+        }
+        metrics.startPhase(Metrics.Phase.PERSIST);
+        compactIfDue();
+        metrics.startPhase(Metrics.Phase.RENDER);
+        return ui.getChangesRevertedMessage(isUndo, applied, tasks.getSize());
+    }
+
+    /**
+     * Makes a change taken from the history and records it in storage and the reminders.
+     */
+    private void applyChange(History.Change change) throws IOException {
+        if (change.after() == null) {
+            Task deletedTask = tasks.deleteTask(change.index());
+            cancelReminder(deletedTask);
+            storage.journalDelete(deletedTask);
+        } else if (change.before() == null) {
+            tasks.insertTask(change.index(), change.after());
+            updateReminder(change.after());
+            storage.journalAdd(change.after());
         } else {
-            task.unmarkAsDone();
-            response = ui.getTaskUnmarkedMessage(task);
+            Task task = change.after().isDone()
+                    ? tasks.markTask(change.index())
+                    : tasks.unmarkTask(change.index());
+            updateReminder(task);
+            storage.journalStatus(task);
+        }
+    }
+
+    /**
+     * Folds the storage journal into a fresh snapshot of the whole list once it has grown long enough.
+     *
+     * @throws IOException If there is an error saving the tasks to the file.
+     */
+    private void compactIfDue() throws IOException {
+        if (storage.isCompactionDue()) {
+            storage.save(tasks.getTasks());
+        }
+    }
+
+    private void updateReminder(Task task) {
+        if (reminders != null) {
+            reminders.update(task);
+        }
+    }
+
+    private void cancelReminder(Task task) {
+        if (reminders != null) {
+            reminders.cancel(task);
         }
-        storage.save(tasks.getTasks());
-        return response;
     }
 
     /**
      * Parses the user input for a keyword, finds matching tasks, and displays them.
      * This command does not modify the task list, so it does not save to the file.
      *
+     * @param list The task list, or a snapshot of it, to search.
      * @param fullCommand The full user input string (e.g., "find book").
      * @throws MonetException If the keyword is missing from the input.
      */
-    private String handleFind(String fullCommand) throws MonetException {
+    private String handleFind(TaskList list, String fullCommand) throws MonetException {
+        metrics.startPhase(Metrics.Phase.PARSE);
         String keyword = Parser.parseFind(fullCommand);
-        TaskList foundTasks = tasks.findTasks(keyword);
+        metrics.startPhase(Metrics.Phase.EXECUTE);
+        TaskList foundTasks = list.findTasks(keyword);
+        metrics.startPhase(Metrics.Phase.RENDER);
         return ui.getFoundTasksMessage(foundTasks);
     }
 
@@ -177,13 +503,82 @@ public class Monet {
      * Parses the user input for the 'priority' command, filters the task list,
      * and returns a formatted string of the results.
      *
+     * @param list The task list, or a snapshot of it, to search.
      * @param fullCommand The full user input string (e.g., "priority 1").
      * @return A string containing the list of tasks with the specified priority.
      * @throws MonetException If the priority level is invalid.
      */
-    private String handlePriority(String fullCommand) throws MonetException {
+    private String handlePriority(TaskList list, String fullCommand) throws MonetException {
+        metrics.startPhase(Metrics.Phase.PARSE);
         Priority priority = Parser.parsePriorityLevel(fullCommand);
-        TaskList filteredTasks = tasks.filterByPriority(priority);
+        metrics.startPhase(Metrics.Phase.EXECUTE);
+        TaskList filteredTasks = list.filterByPriority(priority);
+        metrics.startPhase(Metrics.Phase.RENDER);
         return ui.showPriorityTaskList(priority, filteredTasks); // Assumes you added this to Ui
     }
+
+    /**
+     * Parses the user input for the 'due' command and lists the deadlines and events in the range.
+     *
+     * @param list The task list, or a snapshot of it, to search.
+     * @param fullCommand The full user input string (e.g., "due before 2025-10-01 1200").
+     * @return A string containing the matching tasks, earliest first.
+     * @throws MonetException If the range is in an invalid format.
+     */
+    private String handleDue(TaskList list, String fullCommand) throws MonetException {
+        metrics.startPhase(Metrics.Phase.PARSE);
+        Parser.TimeRange range = Parser.parseDue(fullCommand);
+        metrics.startPhase(Metrics.Phase.EXECUTE);
+        TaskList dueTasks = range.from() == null
+                ? list.findDueBefore(range.to())
+                : list.findDueBetween(range.from(), range.to());
+        metrics.startPhase(Metrics.Phase.RENDER);
+        return ui.getDueTasksMessage(range.from(), range.to(), dueTasks);
+    }
+
+    /**
+     * Parses the user input for the 'free' command and lists the gaps between events in the window.
+     *
+     * @param list The task list, or a snapshot of it, to search.
+     * @param fullCommand The full user input string (e.g., "free 2025-10-20 0900 /to 2025-10-20 1700").
+     * @return A string containing the free slots.
+     * @throws MonetException If the window is in an invalid format.
+     */
+    private String handleFree(TaskList list, String fullCommand) throws MonetException {
+        metrics.startPhase(Metrics.Phase.PARSE);
+        Parser.TimeRange window = Parser.parseFree(fullCommand);
+        metrics.startPhase(Metrics.Phase.EXECUTE);
+        List<LocalDateTime[]> slots = list.findFreeSlots(window.from(), window.to());
+        metrics.startPhase(Metrics.Phase.RENDER);
+        return ui.getFreeSlotsMessage(slots);
+    }
+
+    /**
+     * Parses the user input for the 'upcoming' command and lists the next deadlines and events from now.
+     *
+     * @param list The task list, or a snapshot of it, to search.
+     * @param fullCommand The full user input string (e.g., "upcoming 5").
+     * @return A string containing the upcoming tasks, earliest first.
+     * @throws MonetException If the count is invalid.
+     */
+    private String handleUpcoming(TaskList list, String fullCommand) throws MonetException {
+        metrics.startPhase(Metrics.Phase.PARSE);
+        int count = Parser.parseUpcoming(fullCommand);
+        metrics.startPhase(Metrics.Phase.EXECUTE);
+        TaskList upcomingTasks = list.findUpcoming(LocalDateTime.now(), count);
+        metrics.startPhase(Metrics.Phase.RENDER);
+        return ui.getUpcomingTasksMessage(upcomingTasks);
+    }
+
+    /**
+     * Lists every pair of events that overlap.
+     *
+     * @param list The task list, or a snapshot of it, to search.
+     * @return A string containing the clashing events.
+     */
+    private String handleConflicts(TaskList list) {
+        List<Event[]> conflicts = list.findConflicts();
+        metrics.startPhase(Metrics.Phase.RENDER);
+        return ui.getConflictsMessage(conflicts);
+    }
 }
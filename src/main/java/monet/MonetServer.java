@@ -0,0 +1,154 @@
+package monet;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves one Monet instance to several local clients over HTTP, so that tools and users can share a task list.
+ *
+ * A client POSTs a single command, as typed in the chat window, to /command as the UTF-8 request body, and
+ * gets Monet's response back as plain text. The server only listens on the loopback address.
+ * Requests are handled on a pool of threads. Queries such as list, find and priority run in parallel,
+ * while changes to the list are run one at a time (see Monet.getResponse()).
+ *
+ * A server for a TenantRegistry gives every user a list of their own instead: commands are POSTed to
+ * /users/[user], and a GET of /metrics reports how well the registry's cache is doing.
+ */
+public class MonetServer {
+    /** The port used when no other is given. */
+    public static final int DEFAULT_PORT = 8080;
+    /** The path that commands are posted to. */
+    public static final String COMMAND_PATH = "/command";
+    /** The path under which each user of a TenantRegistry posts their commands. */
+    public static final String USERS_PATH = "/users/";
+    /** The path that reports the cache metrics of a TenantRegistry. */
+    public static final String METRICS_PATH = "/metrics";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Runnable onStop;
+
+    /**
+     * Constructs a server for the given Monet instance. Call start() to begin serving.
+     *
+     * @param monet The instance whose responses are served.
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException If the port cannot be opened.
+     */
+    public MonetServer(Monet monet, int port) throws IOException {
+        this(port, monet::shutdown);
+        server.createContext(COMMAND_PATH, exchange -> handleCommand(exchange, monet::getResponse));
+    }
+
+    /**
+     * Constructs a server that gives each user their own list from the registry. Call start() to begin serving.
+     *
+     * @param registry The registry holding the users' lists.
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException If the port cannot be opened.
+     */
+    public MonetServer(TenantRegistry registry, int port) throws IOException {
+        this(port, registry::close);
+        server.createContext(USERS_PATH, exchange -> handleCommand(exchange, input -> registry.getResponse(
+                exchange.getRequestURI().getPath().substring(USERS_PATH.length()), input)));
+        server.createContext(METRICS_PATH, exchange -> handleMetrics(exchange, registry));
+    }
+
+    private MonetServer(int port, Runnable onStop) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        this.onStop = onStop;
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts serving requests in the background.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return The port, which is only known after construction if 0 was asked for.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits briefly for those in progress, then writes out any pending changes.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        onStop.run();
+    }
+
+    private static void handleCommand(HttpExchange exchange, Responder responder) throws IOException {
+        try (exchange) {
+            if (!isMethod(exchange, "POST")) {
+                return;
+            }
+            String input = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                sendText(exchange, 200, responder.getResponse(stripLineTerminator(input)));
+            } catch (MonetException e) {
+                sendText(exchange, 404, "Alas! " + e.getMessage());
+            }
+        }
+    }
+
+    private static void handleMetrics(HttpExchange exchange, TenantRegistry registry) throws IOException {
+        try (exchange) {
+            if (isMethod(exchange, "GET")) {
+                sendText(exchange, 200, registry.getStats().toString());
+            }
+        }
+    }
+
+    /**
+     * Returns whether the request uses the given method, and answers it with 405 Method Not Allowed if not.
+     */
+    private static boolean isMethod(HttpExchange exchange, String method) throws IOException {
+        if (exchange.getRequestMethod().equals(method)) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        exchange.sendResponseHeaders(405, -1);
+        return false;
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Drops the line terminator that tools such as curl leave at the end of a body read from a file.
+     */
+    private static String stripLineTerminator(String input) {
+        int end = input.length();
+        while (end > 0 && (input.charAt(end - 1) == '\n' || input.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        return input.substring(0, end);
+    }
+
+    /**
+     * Runs a command for a request. A MonetException means the request named something that does not exist.
+     */
+    private interface Responder {
+        String getResponse(String input) throws MonetException;
+    }
+}
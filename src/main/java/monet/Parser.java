@@ -1,63 +1,48 @@
 package monet;
 
-import javafx.util.Pair;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 
 /**
  * Deals with making sense of the user command.
  * Contains methods to parse various types of commands and their arguments.
+ *
+ * Commands are scanned in place: the command word, its arguments and the /p, /by, /from and /to flags
+ * are located by their offsets in the input, without splitting the input into pieces or using regular
+ * expressions. Parsing a command therefore allocates little beyond the strings it returns.
  */
 public class Parser {
+    private static final String DUE_FORMAT = "Invalid format. Prithee useth: due before <date> "
+            + "or due between <date> <date>, with dates as 'yyyy-MM-dd HHmm' or 'yyyy-MM-dd'";
+    private static final String EVENT_FORMAT =
+            "Invalid format. Prithee useth: event <description> /from <start> /to <end>";
+    private static final String PRIORITY_FLAG = " /p ";
+    private static final String BY_FLAG = " /by ";
+    private static final String FROM_FLAG = " /from ";
+    private static final String TO_FLAG = " /to ";
+    // Command.values() returns a new array on every call.
+    private static final Command[] COMMANDS = Command.values();
+
     /**
      * Parses the user's full input string to determine the command type.
+     * The command word is matched against the Command names, ignoring letter case.
      *
      * @param fullInput The full line of input from the user.
      * @return The corresponding Command enum.
      */
     public static Command parseCommand(String fullInput) {
-        String commandWord = fullInput.split(" ")[0].toLowerCase();
-
-        switch (commandWord) {
-        case "list":
-            return Command.LIST;
-        case "mark":
-            return Command.MARK;
-        case "unmark":
-            return Command.UNMARK;
-        case "delete":
-            return Command.DELETE;
-        case "todo":
-            return Command.TODO;
-        case "deadline":
-            return Command.DEADLINE;
-        case "event":
-            return Command.EVENT;
-        case "bye":
-            return Command.BYE;
-        case "find":
-            return Command.FIND;
-        case "priority": // NEW: Handle the priority command
-            return Command.PRIORITY;
-        default:
-            return Command.UNKNOWN;
-        }
-    }
-
-    private static Pair<String, Priority> extractPriority(String content) throws MonetException {
-        // Splits the content by the "/p" flag.
-        String[] parts = content.split(" /p ");
-        if (parts.length > 1) {
-            // Priority flag exists
-            String remainingContent = parts[0].trim();
-            try {
-                int level = Integer.parseInt(parts[1].trim());
-                return new Pair<>(remainingContent, Priority.of(level));
-            } catch (NumberFormatException e) {
-                throw new MonetException("Priority level must be a number (1, 2, or 3).");
+        int wordEnd = fullInput.indexOf(' ');
+        if (wordEnd < 0) {
+            wordEnd = fullInput.length();
+        }
+        for (Command command : COMMANDS) {
+            if (command != Command.UNKNOWN && isWord(fullInput, 0, wordEnd, command.name())) {
+                return command;
             }
-        } else {
-            // No priority flag, return the original content and default priority
-            return new Pair<>(content, Priority.MEDIUM);
         }
+        return Command.UNKNOWN;
     }
 
     /**
@@ -65,20 +50,22 @@ public class Parser {
      * Expected format: "to do [description] /p [level]"
      *
      * @param fullInput The full user input string.
-     * @return The description of the todo task.
+     * @return The description and priority of the todo task.
      * @throws MonetException If the description is empty.
      */
-    public static Object[] parseTodo(String fullInput) throws MonetException {
-        // Splits the input into 2 parts: the command word and the rest of the string.
-        // The limit '2' ensures the description, which may contain spaces, is kept as one part.
-        String[] parts = fullInput.split(" ", 2);
-        if (parts.length < 2 || parts[1].trim().isEmpty()) {
+    public static TodoArgs parseTodo(String fullInput) throws MonetException {
+        int start = argumentStart(fullInput);
+        if (isBlank(fullInput, start, fullInput.length())) {
             throw new MonetException("The description for a todo cannot be empty.");
         }
 
-        String content = parts[1];
-        Pair<String, Priority> result = extractPriority(content);
-        return new Object[]{result.getKey(), result.getValue()};
+        Flags flags = Flags.scan(fullInput, start);
+        Priority priority = flags.parsePriority(fullInput);
+        // Without a priority flag, the description is kept exactly as typed.
+        String description = flags.hasPriority()
+                ? fullInput.substring(flags.contentStart, flags.contentEnd)
+                : fullInput.substring(start);
+        return new TodoArgs(description, priority);
     }
 
     /**
@@ -86,25 +73,26 @@ public class Parser {
      * Expected format: "deadline [description] /by [date] /p [level]"
      *
      * @param fullInput The full user input string.
-     * @return A String array containing the description [0] and the deadline string [1].
+     * @return The description, deadline string and priority of the deadline task.
      * @throws MonetException If the format is incorrect or parts are missing.
      */
-    public static Object[] parseDeadline(String fullInput) throws MonetException {
-        String[] parts = fullInput.split(" ", 2);
-        if (parts.length < 2 || parts[1].trim().isEmpty()) {
+    public static DeadlineArgs parseDeadline(String fullInput) throws MonetException {
+        int start = argumentStart(fullInput);
+        if (isBlank(fullInput, start, fullInput.length())) {
             throw new MonetException("The description f'r a deadline cannot beest barren.");
         }
 
-        Pair<String, Priority> contentAndPriority = extractPriority(parts[1]);
-        String content = contentAndPriority.getKey();
-        Priority priority = contentAndPriority.getValue();
+        Flags flags = Flags.scan(fullInput, start);
+        Priority priority = flags.parsePriority(fullInput);
 
-        // The description part is then split by the "/by" delimiter to separate content and date.
-        String[] deadlineParts = content.split(" /by ", 2);
-        if (deadlineParts.length < 2 || deadlineParts[0].trim().isEmpty() || deadlineParts[1].trim().isEmpty()) {
+        // The description is separated from the date by the first "/by" before any priority flag.
+        int by = flags.by;
+        if (by < 0 || isBlank(fullInput, flags.contentStart, by)
+                || isBlank(fullInput, by + BY_FLAG.length(), flags.contentEnd)) {
             throw new MonetException("Invalid format. Prithee useth: deadline <description> /by <date>");
         }
-        return new Object[]{deadlineParts[0].trim(), deadlineParts[1].trim(), priority};
+        return new DeadlineArgs(trimmed(fullInput, flags.contentStart, by),
+                trimmed(fullInput, by + BY_FLAG.length(), flags.contentEnd), priority);
     }
 
     /**
@@ -112,30 +100,33 @@ public class Parser {
      * Expected format: "event [description] /from [yyyy-MM-dd HHmm] /to [yyyy-MM-dd HHmm]"
      *
      * @param fullInput The full user input string.
-     * @return A String array containing the description [0], from-time [1], and to-time [2].
+     * @return The description, from-time string, to-time string and priority of the event.
      * @throws MonetException If the format is incorrect or parts are missing.
      */
-    public static Object[] parseEvent(String fullInput) throws MonetException {
-        String[] parts = fullInput.split(" ", 2);
-        if (parts.length < 2 || parts[1].trim().isEmpty()) {
+    public static EventArgs parseEvent(String fullInput) throws MonetException {
+        int start = argumentStart(fullInput);
+        if (isBlank(fullInput, start, fullInput.length())) {
             throw new MonetException("The description f'r an event cannot beest barren.");
         }
 
-        Pair<String, Priority> contentAndPriority = extractPriority(parts[1]);
-        String content = contentAndPriority.getKey();
-        Priority priority = contentAndPriority.getValue();
+        Flags flags = Flags.scan(fullInput, start);
+        Priority priority = flags.parsePriority(fullInput);
 
-        String[] eventParts = content.split(" /from ", 2);
-        if (eventParts.length < 2 || eventParts[0].trim().isEmpty() || eventParts[1].trim().isEmpty()) {
-            throw new MonetException("Invalid format. Prithee useth: event <description> /from <start> /to <end>");
+        int from = flags.from;
+        int fromEnd = from + FROM_FLAG.length();
+        if (from < 0 || isBlank(fullInput, flags.contentStart, from)
+                || isBlank(fullInput, fromEnd, flags.contentEnd)) {
+            throw new MonetException(EVENT_FORMAT);
         }
 
-        String[] timeParts = eventParts[1].split(" /to ", 2);
-        if (timeParts.length < 2 || timeParts[0].trim().isEmpty() || timeParts[1].trim().isEmpty()) {
-            throw new MonetException("Invalid format. Prithee useth: event <description> /from <start> /to <end>");
+        int to = flags.to;
+        int toEnd = to + TO_FLAG.length();
+        if (to < 0 || isBlank(fullInput, fromEnd, to) || isBlank(fullInput, toEnd, flags.contentEnd)) {
+            throw new MonetException(EVENT_FORMAT);
         }
 
-        return new Object[]{eventParts[0].trim(), timeParts[0].trim(), timeParts[1].trim(), priority};
+        return new EventArgs(trimmed(fullInput, flags.contentStart, from), trimmed(fullInput, fromEnd, to),
+                trimmed(fullInput, toEnd, flags.contentEnd), priority);
     }
 
     /**
@@ -147,14 +138,13 @@ public class Parser {
      * @throws MonetException If the keyword is missing.
      */
     public static String parseFind(String fullInput) throws MonetException {
-        String[] parts = fullInput.split(" ", 2);
-        if (parts.length < 2 || parts[1].trim().isEmpty()) {
+        int start = argumentStart(fullInput);
+        if (isBlank(fullInput, start, fullInput.length())) {
             throw new MonetException("Prithee ent'r a keyword to findeth.");
         }
-        return parts[1].trim();
+        return trimmed(fullInput, start, fullInput.length());
     }
 
-    // Parses the task index from commands like "mark", "unmark", and "delete"
     /**
      * Parses the task index from commands like "mark", "unmark", and "delete".
      *
@@ -164,13 +154,13 @@ public class Parser {
      * @throws MonetException If the index is not a number or is out of bounds.
      */
     public static int parseIndex(String fullInput, int listSize) throws MonetException {
-        String[] parts = fullInput.split(" ", 2);
-        if (parts.length < 2 || parts[1].trim().isEmpty()) {
+        int start = argumentStart(fullInput);
+        if (isBlank(fullInput, start, fullInput.length())) {
             throw new MonetException("Prithee specifyeth the task number.");
         }
         try {
-            // Convert the user-provided 1-based index to a 0-based index for the ArrayList.
-            int index = Integer.parseInt(parts[1].trim()) - 1;
+            // Convert the user-provided 1-based index to a 0-based index for the list.
+            int index = parseTrimmedInt(fullInput, start, fullInput.length()) - 1;
 
             // Validate that the index is within the bounds of the current task list size.
             if (index < 0 || index >= listSize) {
@@ -183,6 +173,148 @@ public class Parser {
         }
     }
 
+    /**
+     * Parses the time range of a "due" command.
+     * Expected format: "due before [date]" or "due between [date] [date]", where each date is
+     * "yyyy-MM-dd HHmm" or just "yyyy-MM-dd". A date without a time means the start of that day,
+     * except as the end of a "between" range, where it covers the whole day.
+     *
+     * @param fullInput The full user input string.
+     * @return The range, whose start is null for "before".
+     * @throws MonetException If the format is incorrect or a date is invalid.
+     */
+    public static TimeRange parseDue(String fullInput) throws MonetException {
+        int end = fullInput.length();
+        int modeStart = trimStart(fullInput, wordEnd(fullInput, trimStart(fullInput, 0, end), end), end);
+        int modeEnd = wordEnd(fullInput, modeStart, end);
+        int[] next = {trimStart(fullInput, modeEnd, end)};
+        if (next[0] == end) {
+            throw new MonetException(DUE_FORMAT);
+        }
+        if (isWord(fullInput, modeStart, modeEnd, "BEFORE")) {
+            LocalDateTime before = parseDateArgument(fullInput, next, end, false);
+            if (next[0] != end) {
+                throw new MonetException(DUE_FORMAT);
+            }
+            return new TimeRange(null, before);
+        }
+        if (isWord(fullInput, modeStart, modeEnd, "BETWEEN")) {
+            LocalDateTime from = parseDateArgument(fullInput, next, end, false);
+            if (next[0] == end) {
+                throw new MonetException(DUE_FORMAT);
+            }
+            LocalDateTime to = parseDateArgument(fullInput, next, end, true);
+            if (next[0] != end) {
+                throw new MonetException(DUE_FORMAT);
+            }
+            return new TimeRange(from, to);
+        }
+        throw new MonetException(DUE_FORMAT);
+    }
+
+    /**
+     * Parses a date, optionally followed by a time, from the word starting at next[0], and advances next[0]
+     * to the start of the word after it, or to end if there is none.
+     */
+    private static LocalDateTime parseDateArgument(String input, int[] next, int end, boolean isEndOfRange)
+            throws MonetException {
+        try {
+            int dateEnd = wordEnd(input, next[0], end);
+            LocalDate date = DateCodec.parseDate(input.substring(next[0], dateEnd));
+            next[0] = trimStart(input, dateEnd, end);
+            int timeEnd = wordEnd(input, next[0], end);
+            if (timeEnd - next[0] == 4) {
+                LocalTime time = DateCodec.parseTime(input.substring(next[0], timeEnd));
+                next[0] = trimStart(input, timeEnd, end);
+                return date.atTime(time);
+            }
+            return isEndOfRange ? date.atTime(LocalTime.MAX) : date.atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new MonetException("Invalid date format. Prithee useth 'yyyy-MM-dd HHmm'.");
+        }
+    }
+
+    /**
+     * Parses the window of a "free" command.
+     * Expected format: "free [date] /to [date]", with dates as for the "due" command.
+     *
+     * @param fullInput The full user input string.
+     * @return The window.
+     * @throws MonetException If the format is incorrect, a date is invalid or the window is empty.
+     */
+    public static TimeRange parseFree(String fullInput) throws MonetException {
+        String freeFormat = "Invalid format. Prithee useth: free <date> /to <date>";
+        int start = argumentStart(fullInput);
+        int to = fullInput.indexOf(TO_FLAG, start);
+        if (start > fullInput.length() || to < 0
+                || isBlank(fullInput, start, to) || isBlank(fullInput, to + TO_FLAG.length(), fullInput.length())) {
+            throw new MonetException(freeFormat);
+        }
+        int[] windowStarts = {start, to + TO_FLAG.length()};
+        int[] windowEnds = {to, fullInput.length()};
+
+        LocalDateTime[] window = new LocalDateTime[2];
+        for (int i = 0; i < 2; i++) {
+            int[] next = {trimStart(fullInput, windowStarts[i], windowEnds[i])};
+            window[i] = parseDateArgument(fullInput, next, windowEnds[i], i == 1);
+            if (next[0] != windowEnds[i]) {
+                throw new MonetException(freeFormat);
+            }
+        }
+        if (!window[0].isBefore(window[1])) {
+            throw new MonetException("The end of the window must cometh after its start.");
+        }
+        return new TimeRange(window[0], window[1]);
+    }
+
+    /**
+     * Parses the number of tasks to show for an "upcoming" command.
+     * Expected format: "upcoming [count]"
+     *
+     * @param fullInput The full user input string.
+     * @return The number of upcoming tasks to show.
+     * @throws MonetException If the count is missing, not a number or not positive.
+     */
+    public static int parseUpcoming(String fullInput) throws MonetException {
+        int start = argumentStart(fullInput);
+        if (isBlank(fullInput, start, fullInput.length())) {
+            throw new MonetException("Prithee specifyeth how many upcoming tasks to showeth.");
+        }
+        try {
+            int count = parseTrimmedInt(fullInput, start, fullInput.length());
+            if (count <= 0) {
+                throw new MonetException("Prithee specifyeth a positive number of upcoming tasks.");
+            }
+            return count;
+        } catch (NumberFormatException e) {
+            throw new MonetException("Prithee ent'r a valid number of upcoming tasks.");
+        }
+    }
+
+    /**
+     * Parses the number of changes to undo or redo.
+     * Expected format: "undo [count]" or "redo [count]", where the count defaults to 1.
+     *
+     * @param fullInput The full user input string.
+     * @return The number of changes.
+     * @throws MonetException If the count is not a positive number.
+     */
+    public static int parseChangeCount(String fullInput) throws MonetException {
+        int start = argumentStart(fullInput);
+        if (isBlank(fullInput, start, fullInput.length())) {
+            return 1;
+        }
+        try {
+            int count = parseTrimmedInt(fullInput, start, fullInput.length());
+            if (count <= 0) {
+                throw new MonetException("Prithee specifyeth a positive number of changes.");
+            }
+            return count;
+        } catch (NumberFormatException e) {
+            throw new MonetException("Prithee ent'r a valid number of changes.");
+        }
+    }
+
     /**
      * Parses the priority level from a "priority" command.
      * @param fullInput The full user input (e.g., "priority 1").
@@ -190,15 +322,209 @@ public class Parser {
      * @throws MonetException If the level is missing or not a number.
      */
     public static Priority parsePriorityLevel(String fullInput) throws MonetException {
-        String[] parts = fullInput.split(" ", 2);
-        if (parts.length < 2) {
+        int start = argumentStart(fullInput);
+        if (start > fullInput.length()) {
             throw new MonetException("Prithee specifyeth a priority leveleth (1=High, 2=Medium, 3=Low).");
         }
         try {
-            int level = Integer.parseInt(parts[1].trim());
+            int level = parseTrimmedInt(fullInput, start, fullInput.length());
             return Priority.of(level);
         } catch (NumberFormatException e) {
             throw new MonetException("Priority leveleth might not but beest a number (1, 2, or 3).");
         }
     }
+
+    /**
+     * Returns the offset just past the first space, where the arguments of a command start,
+     * or one past the end of the input if there is no space at all.
+     */
+    private static int argumentStart(String input) {
+        int space = input.indexOf(' ');
+        return space < 0 ? input.length() + 1 : space + 1;
+    }
+
+    /**
+     * Returns whether the input from start to end is empty or whitespace, as String.trim() sees it.
+     * A start past the end of the input, as for a command with no arguments, counts as empty.
+     */
+    private static boolean isBlank(String input, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (input.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int trimStart(String input, int start, int end) {
+        while (start < end && input.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String input, int start, int end) {
+        while (end > start && input.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Returns input.substring(start, end).trim(), without making the untrimmed substring.
+     */
+    private static String trimmed(String input, int start, int end) {
+        int trimmedStart = trimStart(input, start, end);
+        return input.substring(trimmedStart, trimEnd(input, trimmedStart, end));
+    }
+
+    /**
+     * Parses the integer between start and end, ignoring surrounding whitespace, without making a substring.
+     *
+     * @throws NumberFormatException If the text is not an integer.
+     */
+    private static int parseTrimmedInt(String input, int start, int end) {
+        int trimmedStart = trimStart(input, start, end);
+        return Integer.parseInt(input, trimmedStart, trimEnd(input, trimmedStart, end), 10);
+    }
+
+    /**
+     * Returns the offset of the first whitespace at or after start, or end if there is none.
+     */
+    private static int wordEnd(String input, int start, int end) {
+        while (start < end && input.charAt(start) > ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Returns whether the input from start to end is the given upper-case word, in any letter case.
+     */
+    private static boolean isWord(String input, int start, int end, String upperCaseWord) {
+        if (end - start != upperCaseWord.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if ((c >= 'a' && c <= 'z' ? (char) (c - 'a' + 'A') : c) != upperCaseWord.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The arguments of a "todo" command.
+     */
+    public record TodoArgs(String description, Priority priority) {
+    }
+
+    /**
+     * The arguments of a "deadline" command, with the deadline still as typed.
+     */
+    public record DeadlineArgs(String description, String by, Priority priority) {
+    }
+
+    /**
+     * The arguments of an "event" command, with the times still as typed.
+     */
+    public record EventArgs(String description, String from, String to, Priority priority) {
+    }
+
+    /**
+     * A range of time given to the "due" or "free" command. The start is null for "due before".
+     */
+    public record TimeRange(LocalDateTime from, LocalDateTime to) {
+    }
+
+    /**
+     * The offsets of the flags in the arguments of an add command.
+     * The offset of a flag is that of the space before it, or -1 if the flag is absent.
+     */
+    private static final class Flags {
+        private int priority = -1;
+        private int by = -1;
+        private int from = -1;
+        private int to = -1;
+        // The arguments before the priority flag, trimmed, which hold the description and any dates.
+        private int contentStart;
+        private int contentEnd;
+        private int levelStart;
+        private int levelEnd;
+
+        /**
+         * Finds the flags in the arguments, which start at the given offset.
+         * The first "/p" ends the content, and the first "/by" and "/from" in the content, and the first
+         * "/to" after that "/from", are the ones used, as if the arguments were split at each flag in turn.
+         */
+        static Flags scan(String input, int start) {
+            Flags flags = new Flags();
+            int length = input.length();
+            flags.contentStart = start;
+            flags.contentEnd = length;
+            int priority = input.indexOf(PRIORITY_FLAG, start);
+            if (priority >= 0) {
+                int nextPriority = input.indexOf(PRIORITY_FLAG, priority + PRIORITY_FLAG.length());
+                flags.levelStart = priority + PRIORITY_FLAG.length();
+                flags.levelEnd = nextPriority < 0 ? length : nextPriority;
+                // Splitting at "/p" drops trailing empty parts, so a flag followed by nothing
+                // but more flags is not a priority flag at all.
+                if (flags.levelStart < flags.levelEnd || !isOnlyPriorityFlags(input, priority)) {
+                    flags.priority = priority;
+                    flags.contentStart = trimStart(input, start, priority);
+                    flags.contentEnd = trimEnd(input, flags.contentStart, priority);
+                }
+            }
+
+            // Then one pass over the content for the other flags, each of which must lie wholly inside it.
+            for (int i = flags.contentStart; i + 1 < flags.contentEnd; i++) {
+                if (input.charAt(i) != ' ' || input.charAt(i + 1) != '/') {
+                    continue;
+                }
+                if (flags.by < 0 && startsWithin(input, BY_FLAG, i, flags.contentEnd)) {
+                    flags.by = i;
+                } else if (flags.from < 0 && startsWithin(input, FROM_FLAG, i, flags.contentEnd)) {
+                    flags.from = i;
+                } else if (flags.to < 0 && flags.from >= 0 && i >= flags.from + FROM_FLAG.length()
+                        && startsWithin(input, TO_FLAG, i, flags.contentEnd)) {
+                    flags.to = i;
+                }
+            }
+            return flags;
+        }
+
+        boolean hasPriority() {
+            return priority >= 0;
+        }
+
+        /**
+         * Returns the priority given by the flag, or MEDIUM if there is none.
+         *
+         * @throws MonetException If the level is not a number.
+         */
+        Priority parsePriority(String input) throws MonetException {
+            if (!hasPriority()) {
+                return Priority.MEDIUM;
+            }
+            try {
+                return Priority.of(parseTrimmedInt(input, levelStart, levelEnd));
+            } catch (NumberFormatException e) {
+                throw new MonetException("Priority level must be a number (1, 2, or 3).");
+            }
+        }
+
+        private static boolean startsWithin(String input, String flag, int offset, int end) {
+            return offset + flag.length() <= end && input.startsWith(flag, offset);
+        }
+
+        private static boolean isOnlyPriorityFlags(String input, int start) {
+            for (int i = start; i < input.length(); i += PRIORITY_FLAG.length()) {
+                if (!input.startsWith(PRIORITY_FLAG, i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
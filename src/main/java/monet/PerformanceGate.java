@@ -0,0 +1,191 @@
+package monet;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Replays a generated Workload through Monet.getResponse() and checks that Monet has not become slower.
+ *
+ * The baseline file holds both the workload, as its seed, size, length and mix, and the throughput and p99
+ * latency it was last accepted at. A run replays the same workload twice against a fresh copy of its data file:
+ * once to warm up the JIT, and once to measure. It fails if the throughput has dropped, or the p99 latency has
+ * risen, by more than the tolerance, which allows for the noise between runs on one machine.
+ * Timings from different machines cannot be compared, so each machine that runs the gate records a baseline
+ * of its own. A missing baseline fails the gate, so that a mistyped path or a lost file cannot pass unnoticed;
+ * running with isUpdate records one, with the default workload. The timings are written in Locale.ROOT, since
+ * they are read back with Double.parseDouble whatever the default locale of the machine.
+ */
+class PerformanceGate {
+    static final long DEFAULT_SEED = 20250915L;
+    static final int DEFAULT_TASKS = 10_000;
+    static final int DEFAULT_COMMANDS = 20_000;
+    static final double DEFAULT_TOLERANCE = 0.25;
+
+    private static final String SEED = "seed";
+    private static final String TASKS = "tasks";
+    private static final String COMMANDS = "commands";
+    private static final String MIX = "mix";
+    private static final String TOLERANCE = "tolerance";
+    private static final String THROUGHPUT = "throughput";
+    private static final String P99_MILLIS = "p99Millis";
+
+    private final File baselineFile;
+    private final Properties baseline = new Properties();
+
+    /**
+     * Constructs a gate that checks against, or records, the given baseline.
+     *
+     * @param baselineFile The baseline file. If it does not exist, only run() with isUpdate can pass, which
+     *     records one with the default workload.
+     * @throws IOException If the baseline file exists but cannot be read.
+     */
+    PerformanceGate(File baselineFile) throws IOException {
+        this.baselineFile = baselineFile;
+        if (baselineFile.exists()) {
+            try (Reader reader = new FileReader(baselineFile, StandardCharsets.UTF_8)) {
+                baseline.load(reader);
+            }
+        }
+    }
+
+    /**
+     * Replays the workload and compares the result with the baseline, or records it as the new baseline.
+     *
+     * @param isUpdate Whether to record the result as the baseline, whether or not one exists.
+     * @param report Where the measurements and the verdict are written, one per line.
+     * @return True if the workload ran at least as fast as the baseline allows, or the baseline was recorded.
+     *     False if it ran slower, or there is no baseline and isUpdate is false.
+     * @throws IOException If the workload or the baseline cannot be written.
+     * @throws NumberFormatException If the baseline file holds a setting that is not a valid number.
+     */
+    boolean run(boolean isUpdate, StringBuilder report) throws IOException {
+        if (!isUpdate && !baseline.containsKey(THROUGHPUT)) {
+            report.append("Alas! There is no baseline in ").append(baselineFile.getPath())
+                    .append(". Prithee record one first with --update (gradle perfGate -PupdateBaseline).")
+                    .append(System.lineSeparator()).append("FAILED");
+            return false;
+        }
+        long seed = Long.parseLong(baseline.getProperty(SEED, String.valueOf(DEFAULT_SEED)));
+        int taskCount = Integer.parseInt(baseline.getProperty(TASKS, String.valueOf(DEFAULT_TASKS)));
+        int commandCount = Integer.parseInt(baseline.getProperty(COMMANDS, String.valueOf(DEFAULT_COMMANDS)));
+        int[] mix = Workload.parseMix(baseline.getProperty(MIX, formatMix(Workload.DEFAULT_MIX)));
+        double tolerance = Double.parseDouble(baseline.getProperty(TOLERANCE, String.valueOf(DEFAULT_TOLERANCE)));
+        if (taskCount < 0 || commandCount < 1) {
+            throw new NumberFormatException("The baseline needs at least one command and cannot have fewer than 0 "
+                    + "tasks.");
+        }
+
+        Workload workload = new Workload(seed, mix);
+        List<String> commands = workload.commands(taskCount, commandCount);
+        File directory = Files.createTempDirectory("monet-perf").toFile();
+        File dataFile = new File(directory, "monet.txt");
+        long[] latencies;
+        long elapsedNanos;
+        Monet monet = null;
+        try {
+            workload.writeDataFile(dataFile, taskCount);
+            replay(copyOf(dataFile), commands, new long[commands.size()]).shutdown(); // Warms up the JIT.
+            latencies = new long[commands.size()];
+            long startTime = System.nanoTime();
+            monet = replay(copyOf(dataFile), commands, latencies);
+            elapsedNanos = System.nanoTime() - startTime;
+        } finally {
+            if (monet != null) {
+                monet.shutdown();
+            }
+            deleteRecursively(directory);
+        }
+
+        Arrays.sort(latencies);
+        double throughput = commands.size() / (elapsedNanos / 1e9);
+        double p99Millis = latencies[(int) Math.ceil(0.99 * latencies.length) - 1] / 1e6;
+        report.append(String.format("%d commands against %d tasks (mix %s, seed %d) in %.2f s%n", commands.size(),
+                taskCount, formatMix(mix), seed, elapsedNanos / 1e9));
+        report.append(String.format("throughput: %.0f commands/s%np99 latency: %.3f ms%n", throughput, p99Millis));
+        report.append(new Ui().getStatsMessage(monet.getMetrics())).append(System.lineSeparator());
+
+        if (isUpdate) {
+            baseline.setProperty(SEED, String.valueOf(seed));
+            baseline.setProperty(TASKS, String.valueOf(taskCount));
+            baseline.setProperty(COMMANDS, String.valueOf(commandCount));
+            baseline.setProperty(MIX, formatMix(mix));
+            baseline.setProperty(TOLERANCE, String.valueOf(tolerance));
+            baseline.setProperty(THROUGHPUT, String.format(Locale.ROOT, "%.0f", throughput));
+            baseline.setProperty(P99_MILLIS, String.format(Locale.ROOT, "%.3f", p99Millis));
+            writeBaseline();
+            report.append("Recorded as the baseline in ").append(baselineFile.getPath()).append(".");
+            return true;
+        }
+
+        double baselineThroughput = Double.parseDouble(baseline.getProperty(THROUGHPUT));
+        double baselineP99Millis = Double.parseDouble(baseline.getProperty(P99_MILLIS));
+        boolean isThroughputOk = throughput >= baselineThroughput * (1 - tolerance);
+        boolean isLatencyOk = p99Millis <= baselineP99Millis * (1 + tolerance);
+        report.append(String.format("baseline: %.0f commands/s, p99 %.3f ms, tolerance %.0f%%%n",
+                baselineThroughput, baselineP99Millis, tolerance * 100));
+        if (!isThroughputOk) {
+            double drop = (1 - throughput / baselineThroughput) * 100;
+            report.append(String.format("REGRESSION: throughput is %.0f%% below the baseline%n", drop));
+        }
+        if (!isLatencyOk) {
+            double rise = (p99Millis / baselineP99Millis - 1) * 100;
+            report.append(String.format("REGRESSION: p99 latency is %.0f%% above the baseline%n", rise));
+        }
+        report.append(isThroughputOk && isLatencyOk ? "PASSED" : "FAILED");
+        return isThroughputOk && isLatencyOk;
+    }
+
+    /**
+     * Runs the commands one after another, as a single user would, and records how long each took.
+     * Changes are journaled as usual, so the latencies include handing them to the background writer.
+     */
+    private static Monet replay(File dataFile, List<String> commands, long[] latencies) {
+        Monet monet = new Monet(dataFile.getPath());
+        for (int i = 0; i < commands.size(); i++) {
+            long start = System.nanoTime();
+            monet.getResponse(commands.get(i));
+            latencies[i] = System.nanoTime() - start;
+        }
+        return monet;
+    }
+
+    private static File copyOf(File dataFile) throws IOException {
+        File copy = File.createTempFile("monet-", ".txt", dataFile.getParentFile());
+        Files.copy(dataFile.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return copy;
+    }
+
+    private void writeBaseline() throws IOException {
+        File absoluteFile = baselineFile.getAbsoluteFile();
+        absoluteFile.getParentFile().mkdirs();
+        try (Writer writer = new FileWriter(absoluteFile, StandardCharsets.UTF_8)) {
+            baseline.store(writer, "Monet performance baseline, see PerformanceGate. Timings only hold on the "
+                    + "machine that recorded them.");
+        }
+    }
+
+    private static String formatMix(int[] mix) {
+        return mix[0] + "," + mix[1] + "," + mix[2];
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
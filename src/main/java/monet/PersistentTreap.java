@@ -0,0 +1,367 @@
+package monet;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * The operations on persistent treaps, which SortedTreap, TaskSequence and IntervalTree are built on.
+ *
+ * A treap is a binary search tree in which every node also has a priority no lower than its children's. With
+ * random priorities, that keeps the tree balanced in expectation whatever order its elements come in. The
+ * nodes are immutable: every operation here returns a new root that copies only the nodes on the paths it
+ * changes and shares the rest with the old tree, which stays as it was and may still be read by any thread.
+ *
+ * Every node knows the size of its subtree, so elements can be found by position as well as by key. A tree that
+ * needs to know more about its subtrees, such as the latest end of the events in one, keeps it in its own
+ * subclass of Node, which works it out from the element and the children when the node is made.
+ */
+final class PersistentTreap {
+    private PersistentTreap() {
+    }
+
+    /**
+     * Returns a random priority for a new node.
+     *
+     * @return The priority.
+     */
+    static int randomPriority() {
+        return ThreadLocalRandom.current().nextInt();
+    }
+
+    /**
+     * Returns the number of elements in a subtree.
+     *
+     * @param node The root of the subtree, or null for an empty one.
+     * @return The number of elements.
+     */
+    static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Builds a balanced tree over the elements in O(N), keeping their order. Priorities fall with depth, which
+     * keeps the heap order of the treap; elements added later get random priorities and settle below the built
+     * nodes.
+     *
+     * @param elements The elements, in the order the tree is to hold them.
+     * @param factory Makes the nodes.
+     * @return The root of the new tree, or null if there are no elements.
+     */
+    static <T, N extends Node<T, N>> N build(List<T> elements, NodeFactory<T, N> factory) {
+        return build(elements, 0, elements.size(), 0, factory);
+    }
+
+    /**
+     * Returns the element at the given position.
+     *
+     * @param root The root of the tree.
+     * @param index The 0-based position, which must be in the tree.
+     * @return The element.
+     */
+    static <T, N extends Node<T, N>> T get(N root, int index) {
+        N node = root;
+        int position = index;
+        while (true) {
+            int leftSize = size(node.left);
+            if (position < leftSize) {
+                node = node.left;
+            } else if (position == leftSize) {
+                return node.element;
+            } else {
+                position -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Returns the element of the tree that compares equal to the probe.
+     *
+     * @param root The root of a tree ordered by the comparator.
+     * @param probe An element with the same sort key as the one wanted.
+     * @param comparator The order of the tree.
+     * @return The element in the tree, or null if there is none.
+     */
+    static <T, N extends Node<T, N>> T find(N root, T probe, Comparator<? super T> comparator) {
+        N node = root;
+        while (node != null) {
+            int comparison = comparator.compare(probe, node.element);
+            if (comparison == 0) {
+                return node.element;
+            }
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Adds the element of a new leaf node in one pass down the tree, in place of any element equal to it.
+     *
+     * @param node The root of a tree ordered by the comparator.
+     * @param leaf A node without children, holding the element to add.
+     * @param comparator The order of the tree.
+     * @return The root of the new tree.
+     */
+    static <T, N extends Node<T, N>> N insert(N node, N leaf, Comparator<? super T> comparator) {
+        if (node == null) {
+            return leaf;
+        }
+        int comparison = comparator.compare(leaf.element, node.element);
+        if (comparison == 0) {
+            return node.with(leaf.element, node.left, node.right);
+        }
+        if (leaf.priority > node.priority) {
+            // The new node belongs above this one, so it takes the two halves of this subtree as children.
+            Halves<N> halves = new Halves<>();
+            split(node, leaf.element, comparator, halves);
+            return leaf.with(leaf.element, halves.before, halves.after);
+        }
+        return comparison < 0
+                ? node.with(node.element, insert(node.left, leaf, comparator), node.right)
+                : node.with(node.element, node.left, insert(node.right, leaf, comparator));
+    }
+
+    /**
+     * Removes the element equal to the key.
+     *
+     * @param node The root of a tree ordered by the comparator.
+     * @param key An element with the same sort key as the one to remove.
+     * @param comparator The order of the tree.
+     * @return The root of the new tree, or the same root if the tree holds no such element.
+     */
+    static <T, N extends Node<T, N>> N delete(N node, T key, Comparator<? super T> comparator) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = comparator.compare(key, node.element);
+        if (comparison == 0) {
+            return merge(node.left, node.right);
+        }
+        if (comparison < 0) {
+            N left = delete(node.left, key, comparator);
+            return left == node.left ? node : node.with(node.element, left, node.right);
+        }
+        N right = delete(node.right, key, comparator);
+        return right == node.right ? node : node.with(node.element, node.left, right);
+    }
+
+    /**
+     * Inserts the element of a new leaf node at the given position, in one pass down the tree.
+     *
+     * @param node The root of the tree.
+     * @param index The 0-based position, from 0 to the size of the tree inclusive.
+     * @param leaf A node without children, holding the element to insert.
+     * @return The root of the new tree.
+     */
+    static <T, N extends Node<T, N>> N insertAt(N node, int index, N leaf) {
+        if (node == null) {
+            return leaf;
+        }
+        if (leaf.priority > node.priority) {
+            Halves<N> halves = new Halves<>();
+            splitAt(node, index, halves);
+            return leaf.with(leaf.element, halves.before, halves.after);
+        }
+        int leftSize = size(node.left);
+        return index <= leftSize
+                ? node.with(node.element, insertAt(node.left, index, leaf), node.right)
+                : node.with(node.element, node.left, insertAt(node.right, index - leftSize - 1, leaf));
+    }
+
+    /**
+     * Removes the element at the given position.
+     *
+     * @param node The root of the tree.
+     * @param index The 0-based position, which must be in the tree.
+     * @return The root of the new tree.
+     */
+    static <T, N extends Node<T, N>> N deleteAt(N node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return node.with(node.element, deleteAt(node.left, index), node.right);
+        } else if (index == leftSize) {
+            return merge(node.left, node.right);
+        }
+        return node.with(node.element, node.left, deleteAt(node.right, index - leftSize - 1));
+    }
+
+    /**
+     * Replaces the element at the given position.
+     *
+     * @param node The root of the tree.
+     * @param index The 0-based position, which must be in the tree.
+     * @param element The element to put there.
+     * @return The root of the new tree.
+     */
+    static <T, N extends Node<T, N>> N set(N node, int index, T element) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return node.with(node.element, set(node.left, index, element), node.right);
+        } else if (index == leftSize) {
+            return node.with(element, node.left, node.right);
+        }
+        return node.with(node.element, node.left, set(node.right, index - leftSize - 1, element));
+    }
+
+    /**
+     * Joins two trees, every element of the first coming before every element of the second.
+     *
+     * @param left The root of the first tree, or null.
+     * @param right The root of the second tree, or null.
+     * @return The root of the joined tree.
+     */
+    static <T, N extends Node<T, N>> N merge(N left, N right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return left.with(left.element, left.left, merge(left.right, right));
+        }
+        return right.with(right.element, merge(left, right.left), right.right);
+    }
+
+    /**
+     * Returns an iterator over the elements in order, starting at the first one that isBeforeStart rejects.
+     *
+     * @param root The root of the tree.
+     * @param isBeforeStart A test that holds for every element up to some point in the order, and for none after.
+     * @return The iterator, which skips the elements before the start in O(log N).
+     */
+    static <T> Iterator<T> iterator(Node<T, ?> root, Predicate<? super T> isBeforeStart) {
+        // An in-order walk with an explicit stack, holding the nodes whose left part has been visited.
+        ArrayDeque<Node<T, ?>> path = new ArrayDeque<>();
+        for (Node<T, ?> node = root; node != null; ) {
+            if (isBeforeStart.test(node.element)) {
+                node = node.right;
+            } else {
+                path.push(node);
+                node = node.left;
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node<T, ?> node = path.pop();
+                for (Node<T, ?> next = node.right; next != null; next = next.left) {
+                    path.push(next);
+                }
+                return node.element;
+            }
+        };
+    }
+
+    private static <T, N extends Node<T, N>> N build(List<T> elements, int from, int to, int depth,
+            NodeFactory<T, N> factory) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return factory.create(elements.get(middle), Integer.MAX_VALUE - depth,
+                build(elements, from, middle, depth + 1, factory), build(elements, middle + 1, to, depth + 1, factory));
+    }
+
+    /**
+     * Splits a subtree into the elements before the key and those after it, leaving out any element equal to it.
+     */
+    private static <T, N extends Node<T, N>> void split(N node, T key, Comparator<? super T> comparator,
+            Halves<N> halves) {
+        if (node == null) {
+            halves.before = null;
+            halves.after = null;
+            return;
+        }
+        int comparison = comparator.compare(key, node.element);
+        if (comparison == 0) {
+            halves.before = node.left;
+            halves.after = node.right;
+        } else if (comparison < 0) {
+            split(node.left, key, comparator, halves);
+            halves.after = node.with(node.element, halves.after, node.right);
+        } else {
+            split(node.right, key, comparator, halves);
+            halves.before = node.with(node.element, node.left, halves.before);
+        }
+    }
+
+    /**
+     * Splits a subtree into its first count elements and the rest.
+     */
+    private static <T, N extends Node<T, N>> void splitAt(N node, int count, Halves<N> halves) {
+        if (node == null) {
+            halves.before = null;
+            halves.after = null;
+            return;
+        }
+        int leftSize = size(node.left);
+        if (count <= leftSize) {
+            splitAt(node.left, count, halves);
+            halves.after = node.with(node.element, halves.after, node.right);
+        } else {
+            splitAt(node.right, count - leftSize - 1, halves);
+            halves.before = node.with(node.element, node.left, halves.before);
+        }
+    }
+
+    /**
+     * An immutable tree node, holding one element and the size of its subtree.
+     *
+     * @param <T> The type of the elements.
+     * @param <N> The subclass itself, so that a node's children are of its own kind.
+     */
+    abstract static class Node<T, N extends Node<T, N>> {
+        protected final T element;
+        protected final int priority;
+        protected final N left;
+        protected final N right;
+        protected final int size;
+
+        protected Node(T element, int priority, N left, N right) {
+            this.element = element;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + PersistentTreap.size(left) + PersistentTreap.size(right);
+        }
+
+        /**
+         * Returns a node of the same kind and priority as this one, holding the given element and children.
+         *
+         * @param element The element of the new node.
+         * @param left The left child, or null.
+         * @param right The right child, or null.
+         * @return The new node.
+         */
+        protected abstract N with(T element, N left, N right);
+    }
+
+    /**
+     * Makes the nodes of a tree, usually the constructor of its Node subclass.
+     */
+    interface NodeFactory<T, N> {
+        N create(T element, int priority, N left, N right);
+    }
+
+    /**
+     * The two parts of a split subtree, filled in from the bottom up.
+     */
+    private static class Halves<N> {
+        private N before;
+        private N after;
+    }
+}
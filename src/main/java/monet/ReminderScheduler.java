@@ -0,0 +1,176 @@
+package monet;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reminds the user of each deadline and event a set number of minutes before it is due.
+ *
+ * Reminders wait in a ReminderWheel, which a single background thread moves on once a minute, so a tick costs
+ * the same with millions of reminders waiting as with a handful. Only tasks that are not done, and whose time
+ * has not passed, are reminded of, each of them once. A task whose reminder time has already passed when it is
+ * scheduled, but not its own time, is reminded of straight away.
+ *
+ * Monet keeps the reminders in step with its list: it updates a task's reminder when the task is added, marked
+ * or unmarked, and cancels it when the task is deleted. Reminders are kept by task id, which a task keeps for
+ * as long as Monet runs, saves included, so the whole list is only scheduled once, when it is loaded. The
+ * wheel, and the reminders by task id, are only touched on the background thread; the other methods hand their
+ * work to it, to be done in the order they were called.
+ */
+class ReminderScheduler {
+    /** The system property that sets how many minutes before a task's time it is reminded of. */
+    static final String LEAD_MINUTES_PROPERTY = "monet.reminders.leadMinutes";
+    /** The lead time used when the property is not set. */
+    static final long DEFAULT_LEAD_MINUTES = 15;
+
+    private static final long TICK_MILLIS = 60_000;
+    // Ticks come a little after the turn of each minute, so that the clock has surely reached it.
+    private static final long TICK_OFFSET_MILLIS = 1_000;
+
+    private final long leadMinutes;
+    private final Clock clock;
+    private final Consumer<Task> listener;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "monet-reminders");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched on the executor's thread.
+    private final ReminderWheel wheel;
+    private final HashMap<Long, ReminderWheel.Reminder> reminders = new HashMap<>();
+    private final List<ReminderWheel.Reminder> due = new ArrayList<>();
+
+    /**
+     * Constructs a scheduler with no reminders and starts its thread, which ticks once a minute until shutdown().
+     *
+     * @param leadMinutes How many minutes before a task's time it is reminded of.
+     * @param clock The clock that tells the time of day, in the time zone that task times are in.
+     * @param listener Receives each task when it is reminded of, on the scheduler's thread.
+     */
+    ReminderScheduler(long leadMinutes, Clock clock, Consumer<Task> listener) {
+        assert leadMinutes >= 0 : "Lead time cannot be negative";
+        this.leadMinutes = leadMinutes;
+        this.clock = clock;
+        this.listener = listener;
+        LocalDateTime now = LocalDateTime.now(clock);
+        wheel = new ReminderWheel(minuteOf(now));
+        long delay = Duration.between(now, now.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1)).toMillis();
+        executor.scheduleAtFixedRate(this::tick, delay + TICK_OFFSET_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules a reminder for the task as it now is, in place of any it had: none if it is done, has no time
+     * or its time has passed. Called whenever a task is added, marked or unmarked.
+     *
+     * @param task The task, which must have its id.
+     */
+    void update(Task task) {
+        long id = task.getId();
+        submit(() -> schedule(id, task));
+    }
+
+    /**
+     * Cancels the reminder of a task, if it has one. Called when a task is deleted.
+     *
+     * @param task The task.
+     */
+    void cancel(Task task) {
+        long id = task.getId();
+        submit(() -> remove(id));
+    }
+
+    /**
+     * Replaces every reminder with those of the given tasks, in O(N). Called with the whole list when it is
+     * first loaded.
+     *
+     * @param tasks The tasks, with their ids. The list must not change afterwards.
+     */
+    void reset(List<Task> tasks) {
+        long[] ids = new long[tasks.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tasks.get(i).getId();
+        }
+        submit(() -> {
+            wheel.clear();
+            reminders.clear();
+            for (int i = 0; i < ids.length; i++) {
+                schedule(ids[i], tasks.get(i));
+            }
+        });
+    }
+
+    /**
+     * Stops the scheduler's thread. Reminders still waiting are dropped.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(Runnable work) {
+        try {
+            executor.execute(work);
+        } catch (RejectedExecutionException e) {
+            // Shut down; there is nothing left to remind of.
+        }
+    }
+
+    private void schedule(long id, Task task) {
+        remove(id);
+        LocalDateTime time = task.getScheduledTime();
+        if (task.isDone() || time == null || minuteOf(time) < wheel.getCurrentMinute()) {
+            return;
+        }
+        ReminderWheel.Reminder reminder = new ReminderWheel.Reminder(id, task, minuteOf(time) - leadMinutes);
+        if (reminder.getDueMinute() <= wheel.getCurrentMinute()) {
+            remind(task);
+            return;
+        }
+        reminders.put(id, reminder);
+        wheel.add(reminder);
+    }
+
+    private void remove(long id) {
+        ReminderWheel.Reminder reminder = reminders.remove(id);
+        if (reminder != null) {
+            wheel.cancel(reminder);
+        }
+    }
+
+    /**
+     * Moves the wheel on to the current minute and reminds of every task that has fallen due. A tick after the
+     * clock has been set back waits until it catches up; one after it has jumped ahead catches up at once.
+     */
+    private void tick() {
+        wheel.advanceTo(minuteOf(LocalDateTime.now(clock)), due);
+        for (ReminderWheel.Reminder reminder : due) {
+            reminders.remove(reminder.getTaskId());
+            remind(reminder.getTask());
+        }
+        due.clear();
+    }
+
+    private void remind(Task task) {
+        try {
+            listener.accept(task);
+        } catch (RuntimeException e) {
+            // A listener that fails must not stop the ticks, which an exception escaping tick() would.
+            System.out.println("Alas! A reminder could not be shown: " + e);
+        }
+    }
+
+    private static long minuteOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+}
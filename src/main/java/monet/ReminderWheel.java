@@ -0,0 +1,209 @@
+package monet;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel that holds reminders until the minute they are due.
+ *
+ * The wheel moves on one minute per tick. It has LEVELS levels of SLOTS slots each, where a slot on level k
+ * spans SLOTS^k minutes, so together they reach about 31 years ahead. A reminder goes into the lowest level
+ * whose slots still reach its minute. Whenever the wheel has gone once round the slots of a level, the next
+ * slot of the level above is emptied into the levels below, and the reminders in the level 0 slot of the
+ * current minute are due. Adding and cancelling a reminder are O(1), and a reminder moves down at most LEVELS
+ * times before it is due, so a tick costs O(1) however many reminders are waiting, besides the ones it hands
+ * out. Reminders beyond the top level wait in an overflow list, which is sorted out each time the top level
+ * goes round.
+ *
+ * Minutes are counted from any fixed point, e.g. the epoch. Not thread-safe; see ReminderScheduler.
+ */
+class ReminderWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final int OVERFLOW = LEVELS; // The overflow list is kept as the only slot of an extra level.
+
+    // The first reminder in each slot. The reminders in a slot are linked to each other both ways.
+    private final Reminder[][] slots = new Reminder[LEVELS + 1][SLOTS];
+    private long currentMinute;
+    private int size;
+
+    /**
+     * Constructs an empty wheel.
+     *
+     * @param currentMinute The minute the wheel starts at.
+     */
+    ReminderWheel(long currentMinute) {
+        this.currentMinute = currentMinute;
+    }
+
+    long getCurrentMinute() {
+        return currentMinute;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Adds a reminder, in O(1). A reminder that is due at or before the current minute is handed out by the
+     * next tick.
+     *
+     * @param reminder The reminder, which must not be in a wheel already.
+     */
+    void add(Reminder reminder) {
+        assert reminder.level < 0 : "Reminder is already in a wheel";
+        place(reminder, Math.max(reminder.dueMinute, currentMinute + 1));
+        size++;
+    }
+
+    /**
+     * Takes a reminder out of the wheel before it is due, in O(1).
+     *
+     * @param reminder The reminder, which must be in this wheel.
+     */
+    void cancel(Reminder reminder) {
+        assert reminder.level >= 0 : "Reminder is not in a wheel";
+        unlink(reminder);
+        size--;
+    }
+
+    /**
+     * Takes every reminder out of the wheel.
+     */
+    void clear() {
+        for (Reminder[] level : slots) {
+            Arrays.fill(level, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves the wheel on to the given minute, one tick at a time, and hands out the reminders that fall due on
+     * the way. An empty wheel jumps there at once. Does nothing if the wheel is already at or past the minute.
+     *
+     * @param minute The minute to move on to.
+     * @param due Where the due reminders are added. They are no longer in the wheel.
+     */
+    void advanceTo(long minute, List<Reminder> due) {
+        while (currentMinute < minute) {
+            if (size == 0) {
+                currentMinute = minute;
+                return;
+            }
+            currentMinute++;
+            tick(due);
+        }
+    }
+
+    private void tick(List<Reminder> due) {
+        // The highest level goes first, as its reminders may drop into a slot of a lower level that is
+        // emptied in this same tick.
+        if ((currentMinute & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) {
+            cascade(OVERFLOW, 0, due);
+        }
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((currentMinute & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                cascade(level, (int) (currentMinute >> (SLOT_BITS * level)) & SLOT_MASK, due);
+            }
+        }
+        int slot = (int) currentMinute & SLOT_MASK;
+        Reminder reminder = slots[0][slot];
+        slots[0][slot] = null;
+        while (reminder != null) {
+            Reminder next = reminder.next;
+            reminder.level = -1;
+            due.add(reminder);
+            size--;
+            reminder = next;
+        }
+    }
+
+    /**
+     * Empties a slot into the lower levels. The reminders it held are all due within the span of the slot,
+     * which starts at the current minute.
+     */
+    private void cascade(int level, int slot, List<Reminder> due) {
+        Reminder reminder = slots[level][slot];
+        slots[level][slot] = null;
+        while (reminder != null) {
+            Reminder next = reminder.next;
+            reminder.level = -1;
+            if (reminder.dueMinute <= currentMinute) {
+                due.add(reminder);
+                size--;
+            } else {
+                place(reminder, reminder.dueMinute);
+            }
+            reminder = next;
+        }
+    }
+
+    /**
+     * Puts a reminder in the slot that the wheel reaches at the given minute, which is after the current one.
+     */
+    private void place(Reminder reminder, long minute) {
+        long delta = minute - currentMinute;
+        int level = 0;
+        while (level < LEVELS && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = level == OVERFLOW ? 0 : (int) (minute >> (SLOT_BITS * level)) & SLOT_MASK;
+        Reminder first = slots[level][slot];
+        reminder.previous = null;
+        reminder.next = first;
+        if (first != null) {
+            first.previous = reminder;
+        }
+        slots[level][slot] = reminder;
+        reminder.level = level;
+        reminder.slot = slot;
+    }
+
+    private void unlink(Reminder reminder) {
+        if (reminder.previous == null) {
+            slots[reminder.level][reminder.slot] = reminder.next;
+        } else {
+            reminder.previous.next = reminder.next;
+        }
+        if (reminder.next != null) {
+            reminder.next.previous = reminder.previous;
+        }
+        reminder.previous = null;
+        reminder.next = null;
+        reminder.level = -1;
+    }
+
+    /**
+     * A task to be reminded of at a given minute, under the id the task had when it was scheduled. It links
+     * itself into the slot it is in, so it can be taken out again without a search.
+     */
+    static class Reminder {
+        private final long taskId;
+        private final Task task;
+        private final long dueMinute;
+        private Reminder previous;
+        private Reminder next;
+        private int level = -1;
+        private int slot;
+
+        Reminder(long taskId, Task task, long dueMinute) {
+            this.taskId = taskId;
+            this.task = task;
+            this.dueMinute = dueMinute;
+        }
+
+        long getTaskId() {
+            return taskId;
+        }
+
+        Task getTask() {
+            return task;
+        }
+
+        long getDueMinute() {
+            return dueMinute;
+        }
+    }
+}
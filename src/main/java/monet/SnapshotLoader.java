@@ -0,0 +1,348 @@
+package monet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32;
+
+/**
+ * Loads a text snapshot by reading line-aligned chunks and parsing them in parallel.
+ *
+ * Each chunk is parsed straight from its bytes on the common fork-join pool, without a Scanner or
+ * String.split. Lines in the usual layout (e.g. "D | 0 | HIGH | return book | 2025-09-26T17:00") take
+ * the fast path; anything unusual is decoded and handed to Storage.parseTaskFromFileString so that
+ * odd lines are treated exactly as before. Tasks are returned in file order.
+ *
+ * Binary snapshots are recognised by their header and read sequentially through BinaryFormat instead.
+ *
+ * Chunks are read into heap buffers with positional reads rather than memory-mapped: a mapping stays open until
+ * the garbage collector frees it, and on Windows a file that is still mapped cannot be replaced by the next save.
+ */
+class SnapshotLoader {
+    /** Files smaller than this are parsed on the calling thread. */
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    /** Size of each read when checksumming a file that is parsed in chunks. */
+    private static final int CHECKSUM_READ_SIZE = 1024 * 1024;
+
+    private static final byte NEWLINE = '\n';
+    private static final byte RETURN = '\r';
+    private static final byte SEPARATOR = '|';
+    private static final int MAX_FIELDS = 6;
+
+    private final File file;
+    private long checksum;
+    private boolean isBinary;
+
+    SnapshotLoader(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the CRC32 of the file contents, available after load() returns.
+     *
+     * @return The checksum of the loaded snapshot.
+     */
+    long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Returns whether the file was a binary snapshot, available after load() returns.
+     *
+     * @return True if the file was in the binary format, false if it was text.
+     */
+    boolean isBinary() {
+        return isBinary;
+    }
+
+    /**
+     * Parses every task in the file.
+     *
+     * @return The tasks in the order they appear in the file.
+     * @throws IOException If the file cannot be read.
+     */
+    ArrayList<Task> load() throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            isBinary = BinaryFormat.isBinary(channel);
+            if (isBinary) {
+                CRC32 crc = new CRC32();
+                ArrayList<Task> tasks = BinaryFormat.read(channel, crc);
+                checksum = crc.getValue();
+                return tasks;
+            }
+
+            long size = channel.size();
+            if (size <= CHUNK_SIZE) {
+                ByteBuffer buffer = read(channel, 0, (int) size);
+                CRC32 crc = new CRC32();
+                crc.update(buffer.array(), 0, buffer.limit());
+                checksum = crc.getValue();
+                return parseChunk(buffer);
+            }
+
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            ForkJoinTask<Long> checksumTask = pool.submit(() -> checksum(channel, size));
+            List<ForkJoinTask<ArrayList<Task>>> chunkTasks = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long end = findLineEnd(channel, Math.min(start + CHUNK_SIZE, size), size);
+                chunkTasks.add(pool.submit(new ChunkTask(channel, start, end)));
+                start = end;
+            }
+
+            ArrayList<Task> tasks = new ArrayList<>();
+            for (ForkJoinTask<ArrayList<Task>> chunkTask : chunkTasks) {
+                tasks.addAll(chunkTask.join());
+            }
+            checksum = checksumTask.join();
+            return tasks;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns the position just past the first newline at or after the given position.
+     */
+    private static long findLineEnd(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        long pos = position;
+        while (pos < size) {
+            window.clear();
+            int read = channel.read(window, pos);
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == NEWLINE) {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    private static long checksum(FileChannel channel, long size) {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(CHECKSUM_READ_SIZE);
+        try {
+            for (long pos = 0; pos < size; pos += buffer.limit()) {
+                buffer.clear();
+                buffer.limit((int) Math.min(CHECKSUM_READ_SIZE, size - pos));
+                readFully(channel, buffer, pos);
+                crc.update(buffer.array(), 0, buffer.limit());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Reads the given region of the file into a new heap buffer, ready to be read from.
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, position);
+        return buffer;
+    }
+
+    /**
+     * Fills the buffer, from its position to its limit, from the file at the given position, then flips it.
+     * Positional reads leave the channel's own position alone, so chunks can be read in parallel.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, pos);
+            if (read < 0) {
+                throw new IOException("Truncated data fileth");
+            }
+            pos += read;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Parses all lines in the buffer, from its position to its limit.
+     */
+    private static ArrayList<Task> parseChunk(ByteBuffer buffer) {
+        ArrayList<Task> tasks = new ArrayList<>();
+        byte[] line = new byte[256];
+        int[] fieldStarts = new int[MAX_FIELDS];
+        int[] fieldEnds = new int[MAX_FIELDS];
+        while (buffer.hasRemaining()) {
+            // Copy one line into the scratch array, growing it for unusually long lines.
+            int length = 0;
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == NEWLINE) {
+                    break;
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, line.length * 2);
+                }
+                line[length++] = b;
+            }
+            if (length > 0 && line[length - 1] == RETURN) {
+                length--;
+            }
+            if (isBlank(line, length)) { // Skip any empty lines that might be in the file.
+                continue;
+            }
+            Task task = parseLine(line, length, fieldStarts, fieldEnds);
+            if (task == null) {
+                // Not in the usual layout; let the regular parser decide, including its warnings.
+                task = Storage.parseTaskFromFileString(new String(line, 0, length, StandardCharsets.UTF_8));
+            }
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Parses a line in the usual layout, or returns null if the line needs the regular parser.
+     */
+    private static Task parseLine(byte[] line, int length, int[] fieldStarts, int[] fieldEnds) {
+        int fields = splitFields(line, length, fieldStarts, fieldEnds);
+        if (fields < 4 || fieldEnds[0] - fieldStarts[0] != 1 || fieldEnds[1] - fieldStarts[1] != 1) {
+            return null;
+        }
+        Priority priority = parsePriority(line, fieldStarts[2], fieldEnds[2]);
+        if (priority == null) {
+            return null;
+        }
+        String description = new String(line, fieldStarts[3], fieldEnds[3] - fieldStarts[3], StandardCharsets.UTF_8);
+
+        Task task;
+        switch (line[fieldStarts[0]]) {
+        case 'T':
+            task = new Todo(description, priority);
+            break;
+        case 'D':
+            LocalDateTime by = fields >= 5 ? DateCodec.parseIso(line, fieldStarts[4], fieldEnds[4]) : null;
+            if (by == null) {
+                return null;
+            }
+            task = new Deadline(description, by, priority);
+            break;
+        case 'E':
+            LocalDateTime from = fields >= 6 ? DateCodec.parseIso(line, fieldStarts[4], fieldEnds[4]) : null;
+            LocalDateTime to = fields >= 6 ? DateCodec.parseIso(line, fieldStarts[5], fieldEnds[5]) : null;
+            if (from == null || to == null) {
+                return null;
+            }
+            task = new Event(description, from, to, priority);
+            break;
+        default:
+            return null;
+        }
+
+        if (line[fieldStarts[1]] == '1') {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    /**
+     * Splits the line on " | " like String.split does, stopping after MAX_FIELDS fields.
+     * Trailing empty fields are dropped, again like String.split.
+     *
+     * @return The number of fields found.
+     */
+    private static int splitFields(byte[] line, int length, int[] fieldStarts, int[] fieldEnds) {
+        int fields = 0;
+        int start = 0;
+        for (int i = 1; i + 1 < length && fields < MAX_FIELDS - 1; i++) {
+            if (line[i] == SEPARATOR && line[i - 1] == ' ' && line[i + 1] == ' ') {
+                fieldStarts[fields] = start;
+                fieldEnds[fields] = i - 1;
+                fields++;
+                start = i + 2;
+                i++;
+            }
+        }
+        int end = length;
+        if (fields == MAX_FIELDS - 1) {
+            // Any further separators belong to fields the parser never reads.
+            for (int i = start + 1; i + 1 < length; i++) {
+                if (line[i] == SEPARATOR && line[i - 1] == ' ' && line[i + 1] == ' ') {
+                    end = i - 1;
+                    break;
+                }
+            }
+        }
+        fieldStarts[fields] = start;
+        fieldEnds[fields] = end;
+        fields++;
+        while (fields > 0 && fieldStarts[fields - 1] == fieldEnds[fields - 1]) {
+            fields--;
+        }
+        return fields;
+    }
+
+    private static Priority parsePriority(byte[] line, int start, int end) {
+        for (Priority priority : Priority.values()) {
+            String name = priority.name();
+            if (name.length() == end - start && regionMatches(line, start, name)) {
+                return priority;
+            }
+        }
+        return null;
+    }
+
+    private static boolean regionMatches(byte[] line, int start, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) {
+            if (line[start + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBlank(byte[] line, int length) {
+        for (int i = 0; i < length; i++) {
+            if ((line[i] & 0xFF) > ' ') { // Same notion of blank as String.trim().
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads and parses one line-aligned region of the file.
+     */
+    private static class ChunkTask extends RecursiveTask<ArrayList<Task>> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+
+        ChunkTask(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected ArrayList<Task> compute() {
+            try {
+                return parseChunk(read(channel, start, Math.toIntExact(end - start)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
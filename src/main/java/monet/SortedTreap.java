@@ -0,0 +1,121 @@
+package monet;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An immutable sorted set, stored in a persistent treap.
+ *
+ * Adding or removing an element returns a new set and leaves this one as it was. The new set copies only
+ * the O(log N) nodes on the path to the change and shares every other node with this one, so old versions
+ * stay valid for as long as anyone holds them, and may be read from any thread without locking.
+ *
+ * @param <T> The type of the elements.
+ */
+class SortedTreap<T> implements Iterable<T> {
+    private final Comparator<? super T> comparator;
+    private final Node<T> root;
+
+    /**
+     * Constructs an empty set.
+     *
+     * @param comparator The order of the elements. Elements that compare equal are the same element.
+     */
+    SortedTreap(Comparator<? super T> comparator) {
+        this(comparator, null);
+    }
+
+    private SortedTreap(Comparator<? super T> comparator, Node<T> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    /**
+     * Returns a set holding the given elements, built in O(N).
+     *
+     * @param comparator The order of the elements.
+     * @param sorted The elements, distinct and already in order.
+     * @return The new set.
+     */
+    static <T> SortedTreap<T> of(Comparator<? super T> comparator, List<T> sorted) {
+        return new SortedTreap<>(comparator, PersistentTreap.build(sorted, Node::new));
+    }
+
+    int size() {
+        return PersistentTreap.size(root);
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Returns the element of this set that compares equal to the probe.
+     *
+     * @param probe An element with the same sort key as the one wanted.
+     * @return The element in the set, or null if there is none.
+     */
+    T get(T probe) {
+        return PersistentTreap.find(root, probe, comparator);
+    }
+
+    boolean contains(T element) {
+        return get(element) != null;
+    }
+
+    /**
+     * Returns a set that also holds the given element, in place of any element comparing equal to it.
+     *
+     * @param element The element to add.
+     * @return The new set.
+     */
+    SortedTreap<T> add(T element) {
+        return new SortedTreap<>(comparator, PersistentTreap.insert(root, newNode(element), comparator));
+    }
+
+    /**
+     * Returns a set without the element comparing equal to the given one.
+     *
+     * @param element The element to remove.
+     * @return The new set, or this set if it holds no such element.
+     */
+    SortedTreap<T> remove(T element) {
+        Node<T> newRoot = PersistentTreap.delete(root, element, comparator);
+        return newRoot == root ? this : new SortedTreap<>(comparator, newRoot);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return iterator(element -> false);
+    }
+
+    /**
+     * Returns an iterator over the elements in order, starting at the first one that isBeforeStart rejects.
+     *
+     * @param isBeforeStart A test that holds for every element up to some point in the order, and for none after.
+     * @return The iterator, which skips the elements before the start in O(log N).
+     */
+    Iterator<T> iterator(Predicate<? super T> isBeforeStart) {
+        return PersistentTreap.iterator(root, isBeforeStart);
+    }
+
+    private static <T> Node<T> newNode(T element) {
+        return new Node<>(element, PersistentTreap.randomPriority(), null, null);
+    }
+
+    /**
+     * An immutable tree node holding one element.
+     */
+    private static class Node<T> extends PersistentTreap.Node<T, Node<T>> {
+        Node(T element, int priority, Node<T> left, Node<T> right) {
+            super(element, priority, left, right);
+        }
+
+        @Override
+        protected Node<T> with(T element, Node<T> left, Node<T> right) {
+            return new Node<>(element, priority, left, right);
+        }
+    }
+}
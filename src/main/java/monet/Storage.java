@@ -1,12 +1,17 @@
 package monet;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.TreeMap;
 
 /**
  * Handles loading tasks from and saving tasks to a file.
@@ -23,87 +28,460 @@ import java.util.Scanner;
  * - [Status] is '1' for done, '0' for not done.
  * - [Priority] is one of 'HIGH', 'MEDIUM', 'LOW'.
  * - DateTimes are stored in ISO 8601 format (e.g., 2025-09-12T18:00).
+ *
+ * Changes made after the last full save are appended to a journal file next to the
+ * snapshot (e.g. "monet.txt.journal"), one small record per change, so that a single
+ * mark or delete does not rewrite the whole file. The journal looks like:
+ * - BASE | [SnapshotChecksum]       (first line, the snapshot this journal applies to)
+ * - ADD | [Id] | [Task in the snapshot format above]   (also puts back a deleted task, e.g. on undo)
+ * - DELETE | [Id]
+ * - MARK | [Id]
+ * - UNMARK | [Id]
+ *
+ * Ids are the 1-based line positions of the tasks in the snapshot, and new tasks continue from there.
+ * The tasks in memory keep the ids they were loaded or added with, even after a save, so the journal
+ * methods translate them to the ids in the data file, which are the ones a reload would assign.
+ * Once the journal grows past the compaction threshold, the caller folds it into a new snapshot with save().
+ *
+ * Snapshots can also be kept in the compact binary format described in BinaryFormat. The format of an
+ * existing file is detected when loading and kept for later saves; setFormat() switches it, e.g. to migrate
+ * a text file, while exportText() still produces the text format on demand. The journal is always text.
+ *
+ * All writes happen on a background StorageWriter, so callers never block on the disk.
+ * Call flush() or close() before exiting to make sure every change has been written.
+ *
+ * A long run of changes, such as a batch of commands, can skip the journal altogether: after deferChanges(),
+ * the journal methods only note that something changed, and saveDeferredChanges() writes one snapshot at the end.
  */
 public class Storage {
+    /**
+     * The formats a snapshot can be stored in.
+     */
+    public enum Format {
+        TEXT, BINARY
+    }
+
+    /** Number of journal records after which a compaction into a new snapshot is due. */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+    /** Default longest time a change waits to be grouped with later ones before it is written. */
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 20;
+    /** System property that overrides the maximum write delay, in milliseconds. */
+    public static final String MAX_DELAY_PROPERTY = "monet.storage.maxDelayMs";
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String WARNING = "Warning: Corrupted line in data fileth shall be ignored: ";
+
     private final String filePath;
+    private final String journalPath;
+    private final int compactionThreshold;
+    private final StorageWriter writer;
+    private Format format = Format.TEXT;
+    private long snapshotChecksum;
+    // The ids of the snapshot tasks in memory, in order, or null while they equal their positions, as after load().
+    private long[] snapshotIds;
+    private int journalRecords;
+    private boolean isDeferring;
+    private boolean hasDeferredChanges;
 
     /**
-     * Constructs a Storage object.
+     * Constructs a Storage object with the default compaction threshold.
+     * The maximum write delay can be set with the "monet.storage.maxDelayMs" system property.
      *
      * @param filePath The path of the file to be used for storing tasks.
      */
     public Storage(String filePath) {
+        this(filePath, new Metrics());
+    }
+
+    /**
+     * Constructs a Storage object with the default compaction threshold, which records what it writes in the
+     * given metrics.
+     *
+     * @param filePath The path of the file to be used for storing tasks.
+     * @param metrics Where the bytes written and the duration of each write are recorded.
+     */
+    Storage(String filePath, Metrics metrics) {
+        this(filePath, DEFAULT_COMPACTION_THRESHOLD, Long.getLong(MAX_DELAY_PROPERTY, DEFAULT_MAX_DELAY_MILLIS),
+                metrics);
+    }
+
+    /**
+     * Constructs a Storage object.
+     *
+     * @param filePath The path of the file to be used for storing tasks.
+     * @param compactionThreshold The number of journal records after which compaction is due.
+     * @param maxDelayMillis The longest time a change may wait before it is written to disk.
+     */
+    public Storage(String filePath, int compactionThreshold, long maxDelayMillis) {
+        this(filePath, compactionThreshold, maxDelayMillis, new Metrics());
+    }
+
+    private Storage(String filePath, int compactionThreshold, long maxDelayMillis, Metrics metrics) {
+        assert compactionThreshold > 0 : "Compaction threshold must be positive";
+        assert maxDelayMillis >= 0 : "Maximum write delay must not be negative";
         this.filePath = filePath;
+        this.journalPath = filePath + JOURNAL_SUFFIX;
+        this.compactionThreshold = compactionThreshold;
+        this.writer = new StorageWriter(new File(filePath), new File(journalPath), maxDelayMillis, metrics);
     }
 
     /**
-     * Loads tasks from the storage file.
+     * Loads tasks from the storage file, then replays the journal on top of them.
      *
      * @return An ArrayList of tasks loaded from the file.
-     * @throws MonetException if the file contains corrupted data.
+     * @throws MonetException if the file cannot be read.
      */
     public ArrayList<Task> load() throws MonetException {
+        FlightRecorderEvents.LoadEvent event = new FlightRecorderEvents.LoadEvent();
+        event.begin();
         // Create a File object from the given path to interact with the file system.
         File file = new File(filePath);
         ArrayList<Task> loadedTasks = new ArrayList<>();
-        if (!file.exists()) {
-            return loadedTasks; // Return empty list if no file exists.
-        }
-        try (Scanner scanner = new Scanner(file)) {
-            while (scanner.hasNext()) {
-                String line = scanner.nextLine();
-                if (line.trim().isEmpty()) { // Skip any empty lines that might be in the file.
-                    continue;
-                }
-                // Parse the line and add the resulting Task object to the list.
-                Task task = parseTaskFromFileString(line);
-                if (task != null) {
-                    loadedTasks.add(task);
-                }
+        snapshotChecksum = 0;
+        snapshotIds = null;
+        if (file.exists()) {
+            SnapshotLoader loader = new SnapshotLoader(file);
+            try {
+                loadedTasks = loader.load();
+            } catch (IOException e) {
+                throw new MonetException("Couldst not readeth the data fileth: " + e.getMessage());
+            }
+            for (int i = 0; i < loadedTasks.size(); i++) {
+                loadedTasks.get(i).setId(i + 1);
             }
-        } catch (FileNotFoundException e) {
+            snapshotChecksum = loader.getChecksum();
+            format = loader.isBinary() ? Format.BINARY : Format.TEXT;
+        } else {
             // Catch cases where the file is not found, returns an empty list instead.
             System.out.println("Fileth not hath found, shall beest did create on first saveth.");
         }
-        return loadedTasks;
+        writer.setBaseChecksum(snapshotChecksum);
+        int snapshotSize = loadedTasks.size();
+        ArrayList<Task> tasks = replayJournal(loadedTasks);
+        event.finish(filePath, format, file.length() + new File(journalPath).length(), snapshotSize + journalRecords);
+        return tasks;
     }
 
     /**
-     * Saves the current list of tasks to the storage file.
+     * Saves the current list of tasks to the storage file as a new snapshot and empties the journal.
+     * The tasks keep their ids; later journal records refer to them by their positions in the new snapshot.
+     * The snapshot is written in the background; call flush() to wait for it.
      *
-     * @param tasks The ArrayList of tasks to save.
-     * @throws IOException If there is an error writing to the file.
+     * @param tasks The ArrayList of tasks to save, in list order, so that their ids increase.
+     * @throws IOException If an earlier background write has failed.
      */
     public void save(ArrayList<Task> tasks) throws IOException {
-        File file = new File(filePath);
+        try {
+            writer.submitSnapshot(new ArrayList<>(tasks), format);
+        } catch (IOException e) {
+            journalRecords = compactionThreshold; // Nothing was submitted, so the save is still due.
+            throw e;
+        }
+        snapshotIds = new long[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            snapshotIds[i] = tasks.get(i).getId();
+        }
+        journalRecords = 0;
+    }
+
+    /**
+     * Returns the format snapshots are saved in.
+     *
+     * @return The format detected by load(), or the one last set with setFormat().
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Sets the format that the next and later snapshots are saved in.
+     * The file on disk keeps its current format until the next save().
+     *
+     * @param format The new snapshot format.
+     */
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Writes the tasks to another file in the text format, regardless of the format of this Storage.
+     * The export is written synchronously and does not touch this Storage's own files.
+     *
+     * @param tasks The tasks to export.
+     * @param exportPath The path of the text file to write.
+     * @throws IOException If there is an error writing to the file.
+     */
+    public void exportText(ArrayList<Task> tasks, String exportPath) throws IOException {
+        File exportFile = new File(exportPath).getAbsoluteFile();
+        exportFile.getParentFile().mkdirs();
+        try (Writer fw = new BufferedWriter(new FileWriter(exportFile, StandardCharsets.UTF_8))) {
+            StorageWriter.writeText(fw, tasks);
+        }
+    }
+
+    /**
+     * Appends a record for a newly added task to the journal.
+     *
+     * @param task The task that was added. It must already have an id.
+     * @throws IOException If there is an error writing to the journal.
+     */
+    public void journalAdd(Task task) throws IOException {
+        if (deferChange()) {
+            return;
+        }
+        long id = fileId(task);
+        if (id > 0) {
+            appendRecord("ADD | " + id + " | " + task.toFileString());
+        }
+    }
+
+    /**
+     * Appends a record for a deleted task to the journal.
+     *
+     * @param task The task that was deleted.
+     * @throws IOException If there is an error writing to the journal.
+     */
+    public void journalDelete(Task task) throws IOException {
+        if (deferChange()) {
+            return;
+        }
+        long id = fileId(task);
+        if (id > 0) {
+            appendRecord("DELETE | " + id);
+        }
+    }
+
+    /**
+     * Appends a record for the current done status of a task to the journal.
+     *
+     * @param task The task that was marked or unmarked.
+     * @throws IOException If there is an error writing to the journal.
+     */
+    public void journalStatus(Task task) throws IOException {
+        if (deferChange()) {
+            return;
+        }
+        long id = fileId(task);
+        if (id > 0) {
+            appendRecord((task.isDone() ? "MARK | " : "UNMARK | ") + id);
+        }
+    }
+
+    /**
+     * Returns whether the journal has grown enough that it should be folded into a new snapshot.
+     *
+     * @return True if the caller should call save() with the full task list.
+     */
+    public boolean isCompactionDue() {
+        return !isDeferring && journalRecords >= compactionThreshold;
+    }
+
+    /**
+     * Returns whether the journal holds any changes that are not in the snapshot yet.
+     *
+     * @return True if a save() would change the snapshot on disk.
+     */
+    public boolean hasJournalRecords() {
+        return journalRecords > 0;
+    }
+
+    /**
+     * Stops recording changes in the journal until saveDeferredChanges() is called.
+     * Changes made in the meantime are only on disk once that save is done, so a crash loses them all.
+     */
+    public void deferChanges() {
+        isDeferring = true;
+    }
+
+    /**
+     * Saves the tasks as a new snapshot if anything changed since deferChanges(), and resumes journaling.
+     *
+     * @param tasks The ArrayList of tasks to save.
+     * @throws IOException If an earlier background write has failed.
+     */
+    public void saveDeferredChanges(ArrayList<Task> tasks) throws IOException {
+        isDeferring = false;
+        if (hasDeferredChanges) {
+            hasDeferredChanges = false;
+            save(tasks);
+        }
+    }
+
+    /**
+     * Blocks until every change handed to this Storage so far is safely on disk.
+     * If any of them failed, a save is made due, as journal records may have been lost.
+     *
+     * @throws IOException If any of the pending writes failed.
+     */
+    public void flush() throws IOException {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            journalRecords = compactionThreshold;
+            throw e;
+        }
+    }
+
+    /**
+     * Writes out all pending changes and stops the background writer.
+     *
+     * @throws IOException If any of the pending writes failed.
+     */
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Notes a change instead of journaling it, if changes are being deferred.
+     *
+     * @return True if the change was deferred and needs no journal record.
+     */
+    private boolean deferChange() {
+        hasDeferredChanges |= isDeferring;
+        return isDeferring;
+    }
+
+    /**
+     * Returns the id of the task in the data file: its position in the snapshot, or for a task added since,
+     * the number of snapshot tasks plus how far its id lies past the last of theirs. That is the id a reload
+     * gives the task, and the journal refers to it by.
+     * A task whose id lies between those of two snapshot tasks without being one of them, as when a task deleted
+     * before the last save is put back, has no such id. Its change is not journaled, and a save is made due
+     * instead, which records the change along with the rest of the list.
+     *
+     * @return The id in the data file, or 0 if the task has none.
+     */
+    private long fileId(Task task) {
+        long id = task.getId();
+        if (snapshotIds == null) {
+            return id;
+        }
+        int position = Arrays.binarySearch(snapshotIds, id);
+        if (position >= 0) {
+            return position + 1;
+        }
+        long lastSnapshotId = snapshotIds.length == 0 ? 0 : snapshotIds[snapshotIds.length - 1];
+        if (id > lastSnapshotId) {
+            return snapshotIds.length + id - lastSnapshotId;
+        }
+        journalRecords = compactionThreshold;
+        return 0;
+    }
+
+    private void appendRecord(String record) throws IOException {
+        try {
+            writer.submitRecord(record);
+            journalRecords++;
+        } catch (IOException e) {
+            // Some journal records may have been lost, so the next change rewrites the whole snapshot.
+            journalRecords = compactionThreshold;
+            throw e;
+        }
+    }
 
-        // Ensures that the parent directory (e.g., "./data") exists.
-        // If it doesn't, it will be created. Prevents crashes on the first run.
-        file.getParentFile().mkdirs();
+    /**
+     * Applies the journal records to the tasks loaded from the snapshot.
+     * A journal written against a different snapshot is ignored, as its changes are already in the snapshot.
+     * A trailing record without a line terminator was cut short by a crash and is ignored as well.
+     *
+     * @param snapshot The snapshot tasks, where the task with id i is at index i - 1.
+     * @return The tasks after replaying the journal, in list order.
+     */
+    private ArrayList<Task> replayJournal(ArrayList<Task> snapshot) {
+        journalRecords = 0;
+        File journal = new File(journalPath);
+        if (!journal.exists()) {
+            return snapshot;
+        }
+        String content;
+        try {
+            content = Files.readString(journal.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.println("Journal couldst not beest read, shall beest ignored: " + e.getMessage());
+            return snapshot;
+        }
+
+        String[] lines = content.split("\\R", -1);
+        // The last element is either empty (complete file) or an unterminated, torn record.
+        int recordCount = lines.length - 1;
+        if (recordCount < 1 || !lines[0].equals("BASE | " + snapshotChecksum)) {
+            return snapshot;
+        }
+
+        // Snapshot tasks are found by position, so only tasks added since need a map. It is ordered by id,
+        // like the list, so that a task put back after its deletion returns to its place.
+        int snapshotSize = snapshot.size();
+        TreeMap<Long, Task> added = new TreeMap<>();
+        boolean hasDeletions = false;
+        for (int i = 1; i < recordCount; i++) {
+            String[] parts = lines[i].split(" \\| ", 3);
+            try {
+                long id = Long.parseLong(parts[1]);
+                boolean isSnapshotTask = id >= 1 && id <= snapshotSize;
+                Task task = isSnapshotTask ? snapshot.get((int) id - 1) : added.get(id);
+                switch (parts[0]) {
+                case "ADD":
+                    Task newTask = parseTaskFromFileString(parts[2]);
+                    if (newTask == null) {
+                        break;
+                    }
+                    newTask.setId(id);
+                    if (!isSnapshotTask) {
+                        added.put(id, newTask);
+                    } else if (task == null) {
+                        // Ids start again after the highest one left when the file is loaded, so a task added
+                        // after the last tasks of the snapshot were deleted takes over the id of one of them.
+                        snapshot.set((int) id - 1, newTask);
+                    }
+                    break;
+                case "DELETE":
+                    if (isSnapshotTask) {
+                        snapshot.set((int) id - 1, null);
+                        hasDeletions = true;
+                    } else {
+                        added.remove(id);
+                    }
+                    break;
+                case "MARK":
+                    if (task != null) {
+                        task.markAsDone();
+                    }
+                    break;
+                case "UNMARK":
+                    if (task != null) {
+                        task.unmarkAsDone();
+                    }
+                    break;
+                default:
+                    System.out.println(WARNING + lines[i]);
+                    continue;
+                }
+                journalRecords++;
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                System.out.println(WARNING + lines[i]);
+            }
+        }
 
-        FileWriter fw = new FileWriter(file);
-        for (Task task : tasks) {
-            // Convert each task to its machine-readable file format.
-            fw.write(task.toFileString() + System.lineSeparator());
+        if (hasDeletions) {
+            snapshot.removeIf(Objects::isNull);
         }
-        fw.close();
+        snapshot.addAll(added.values());
+        return snapshot;
     }
 
     /**
      * Parses a single line from the file into a Task object.
-     * This is a private helper method for the load() function.
+     * Used for journal records, and by SnapshotLoader for lines outside its fast path.
      *
      * @param line The string line from the file.
      * @return The corresponding Task object, or null if the line is corrupted.
-     * @throws MonetException if the line contains a known but malformed task.
      */
-    private Task parseTaskFromFileString(String line) throws MonetException {
+    static Task parseTaskFromFileString(String line) {
         // Format: T | 0 | MEDIUM | read book
         String[] parts = line.split(" \\| ");
-        String warning = "Warning: Corrupted line in data fileth shall be ignored: ";
 
         if (parts.length < 4) {
-            System.out.println(warning + line);
+            System.out.println(WARNING + line);
             return null;
         }
 
@@ -123,25 +501,25 @@ public class Storage {
         case "D":
             // Add specific validation for deadline format.
             if (parts.length < 5) {
-                System.out.println(warning + line);
+                System.out.println(WARNING + line);
                 return null;
             }
-            LocalDateTime by = LocalDateTime.parse(parts[4]);
+            LocalDateTime by = DateCodec.parseIso(parts[4]);
             task = new Deadline(description, by, priority);
             break;
         case "E":
             // Add specific validation for event format.
             if (parts.length < 6) {
-                System.out.println(warning + line);
+                System.out.println(WARNING + line);
                 return null;
             }
-            LocalDateTime from = LocalDateTime.parse(parts[4]);
-            LocalDateTime to = LocalDateTime.parse(parts[5]);
+            LocalDateTime from = DateCodec.parseIso(parts[4]);
+            LocalDateTime to = DateCodec.parseIso(parts[5]);
             task = new Event(description, from, to, priority);
             break;
         default:
             // If the type is unknown, it's also a corrupted line.
-            System.out.println(warning + line);
+            System.out.println(WARNING + line);
             return null;
         }
 
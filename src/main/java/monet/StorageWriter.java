@@ -0,0 +1,344 @@
+package monet;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Performs all writes to the data file and its journal on a single background thread.
+ *
+ * Requests are queued by Storage and written after at most the configured delay, so a burst of
+ * changes turns into one write and one fsync. When several snapshots are requested before the
+ * writer gets to them, only the latest one is written, along with the journal records queued after it.
+ *
+ * Snapshots are written to a temporary file, fsynced and then atomically renamed over the data file,
+ * so a crash leaves either the old or the new snapshot on disk, never a truncated one.
+ */
+class StorageWriter {
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File file;
+    private final File journal;
+    private final long maxDelayMillis;
+    private final Metrics metrics;
+    private final Object lock = new Object();
+
+    // All fields below are guarded by lock.
+    private List<Task> pendingSnapshot;
+    private Storage.Format pendingFormat;
+    private StringBuilder pendingJournal = new StringBuilder();
+    private long firstPendingAt;
+    private long requested;
+    private long completed;
+    private boolean isFlushRequested;
+    private boolean isClosed;
+    private IOException failure;
+    private Thread thread;
+    private Thread shutdownHook;
+
+    // Only touched by the writer thread once it has started.
+    private long baseChecksum;
+
+    /**
+     * Constructs a StorageWriter for the given snapshot and journal files.
+     *
+     * @param file The snapshot file.
+     * @param journal The journal file.
+     * @param maxDelayMillis The longest time a request may wait to be coalesced with later ones.
+     * @param metrics Where the bytes written and the time taken by each write are recorded.
+     */
+    StorageWriter(File file, File journal, long maxDelayMillis, Metrics metrics) {
+        this.file = file;
+        this.journal = journal;
+        this.maxDelayMillis = maxDelayMillis;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the checksum of the snapshot currently on disk, used as the BASE of a new journal.
+     * Must only be called while no writes are pending, i.e. right after loading.
+     *
+     * @param checksum The CRC32 of the snapshot file.
+     */
+    void setBaseChecksum(long checksum) {
+        synchronized (lock) {
+            assert requested == completed : "Base checksum changed while writes are pending";
+            baseChecksum = checksum;
+        }
+    }
+
+    /**
+     * Queues a record to be appended to the journal.
+     *
+     * @param record The record, without a line terminator.
+     * @throws IOException If an earlier background write has failed.
+     */
+    void submitRecord(String record) throws IOException {
+        synchronized (lock) {
+            throwPendingFailure();
+            pendingJournal.append(record).append(System.lineSeparator());
+            markPending();
+        }
+    }
+
+    /**
+     * Queues a new snapshot of the full list. Journal records queued before it are dropped,
+     * as the snapshot already contains their changes.
+     * The tasks are formatted on the writer thread. A task marked or unmarked after this call may be
+     * written with its newer status, which is harmless because the matching journal record follows the
+     * snapshot and sets the same status again on replay.
+     *
+     * @param tasks A copy of the task list that the caller will not modify.
+     * @param format The format to write the snapshot in.
+     * @throws IOException If an earlier background write has failed.
+     */
+    void submitSnapshot(List<Task> tasks, Storage.Format format) throws IOException {
+        synchronized (lock) {
+            throwPendingFailure();
+            pendingSnapshot = tasks;
+            pendingFormat = format;
+            pendingJournal = new StringBuilder();
+            markPending();
+        }
+    }
+
+    /**
+     * Blocks until every request queued so far has been written and fsynced.
+     *
+     * @throws IOException If any of the writes failed.
+     */
+    void flush() throws IOException {
+        synchronized (lock) {
+            long target = requested;
+            isFlushRequested = true;
+            lock.notifyAll();
+            try {
+                while (completed < target) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting f'r the data fileth to beest written.");
+            } finally {
+                isFlushRequested = false;
+            }
+            throwPendingFailure();
+        }
+    }
+
+    /**
+     * Flushes all pending writes and stops the writer thread.
+     * Its shutdown hook is removed as well, so closed writers do not pile up in a long-running process.
+     *
+     * @throws IOException If any of the writes failed.
+     */
+    void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            Thread hook;
+            synchronized (lock) {
+                isClosed = true;
+                hook = shutdownHook;
+                shutdownHook = null;
+                lock.notifyAll();
+            }
+            if (hook != null) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(hook);
+                } catch (IllegalStateException e) {
+                    // The JVM is already shutting down and runs the hook anyway, which then finds nothing to do.
+                }
+            }
+        }
+    }
+
+    private void markPending() {
+        if (requested == completed) {
+            firstPendingAt = System.currentTimeMillis();
+        }
+        requested++;
+        if (thread == null) {
+            thread = new Thread(this::run, "monet-storage-writer");
+            thread.setDaemon(true);
+            thread.start();
+            shutdownHook = new Thread(this::flushQuietly, "monet-storage-flush");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+        lock.notifyAll();
+    }
+
+    private void throwPendingFailure() throws IOException {
+        if (failure != null) {
+            IOException e = failure;
+            failure = null;
+            throw e;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.out.println("Alas! Couldst not saveth thy tasks: " + e.getMessage());
+        }
+    }
+
+    private void run() {
+        while (true) {
+            List<Task> snapshot;
+            Storage.Format format;
+            String records;
+            long batch;
+            synchronized (lock) {
+                try {
+                    while (requested == completed && !isClosed) {
+                        lock.wait();
+                    }
+                    if (requested == completed) {
+                        return;
+                    }
+                    // Give later requests a chance to join this write, unless someone is waiting for it.
+                    long now = System.currentTimeMillis();
+                    while (!isFlushRequested && !isClosed && now < firstPendingAt + maxDelayMillis) {
+                        lock.wait(firstPendingAt + maxDelayMillis - now);
+                        now = System.currentTimeMillis();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                snapshot = pendingSnapshot;
+                format = pendingFormat;
+                records = pendingJournal.toString();
+                batch = requested;
+                pendingSnapshot = null;
+                pendingJournal = new StringBuilder();
+            }
+
+            IOException error = null;
+            try {
+                if (snapshot != null) {
+                    writeSnapshot(snapshot, format);
+                }
+                if (!records.isEmpty()) {
+                    appendJournal(records);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+
+            synchronized (lock) {
+                if (error != null) {
+                    failure = error;
+                }
+                completed = batch;
+                if (requested != completed) {
+                    firstPendingAt = System.currentTimeMillis();
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void writeSnapshot(List<Task> tasks, Storage.Format format) throws IOException {
+        FlightRecorderEvents.SaveEvent event = new FlightRecorderEvents.SaveEvent();
+        event.begin();
+        long startedAt = System.nanoTime();
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        CRC32 checksum = new CRC32();
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            OutputStream checked = new CheckedOutputStream(out, checksum);
+            if (format == Storage.Format.BINARY) {
+                writeBinary(new BufferedOutputStream(checked), tasks);
+            } else {
+                writeText(new BufferedWriter(new OutputStreamWriter(checked, StandardCharsets.UTF_8)), tasks);
+            }
+            out.getFD().sync();
+        }
+        long bytes = temp.length();
+        replace(temp, file);
+        baseChecksum = checksum.getValue();
+
+        // The old journal is stale from here on, even if we crash before replacing it,
+        // because its BASE checksum no longer matches the snapshot.
+        File tempJournal = new File(journal.getPath() + TEMP_SUFFIX);
+        byte[] base = baseRecord().getBytes(StandardCharsets.UTF_8);
+        try (FileOutputStream out = new FileOutputStream(tempJournal)) {
+            out.write(base);
+            out.getFD().sync();
+        }
+        replace(tempJournal, journal);
+        metrics.recordSave(bytes + base.length, System.nanoTime() - startedAt);
+        event.finish(file.getPath(), format, bytes + base.length, tasks.size());
+    }
+
+    /**
+     * Writes the tasks in the text format and flushes the writer, without closing it.
+     *
+     * @param writer The writer to write to.
+     * @param tasks The tasks to write.
+     * @throws IOException If there is an error writing.
+     */
+    static void writeText(Writer writer, List<Task> tasks) throws IOException {
+        for (Task task : tasks) {
+            writer.write(task.toFileString());
+            writer.write(System.lineSeparator());
+        }
+        writer.flush();
+    }
+
+    private static void writeBinary(OutputStream out, List<Task> tasks) throws IOException {
+        BinaryFormat.writeHeader(out);
+        for (Task task : tasks) {
+            BinaryFormat.write(out, task);
+        }
+        out.flush();
+    }
+
+    private void appendJournal(String records) throws IOException {
+        long startedAt = System.nanoTime();
+        journal.getAbsoluteFile().getParentFile().mkdirs();
+        boolean isNew = !journal.exists();
+        byte[] content = (isNew ? baseRecord() + records : records).getBytes(StandardCharsets.UTF_8);
+        try (FileOutputStream out = new FileOutputStream(journal, true)) {
+            out.write(content);
+            out.getFD().sync();
+        }
+        metrics.recordJournalWrite(content.length, System.nanoTime() - startedAt);
+    }
+
+    private String baseRecord() {
+        return "BASE | " + baseChecksum + System.lineSeparator();
+    }
+
+    private static void replace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        // Make the rename itself durable. Not every platform allows opening a directory, so this is best effort.
+        try (FileChannel dir = FileChannel.open(target.getAbsoluteFile().getParentFile().toPath(),
+                StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // The rename has still happened; only its durability across a power loss is weaker.
+        }
+    }
+}
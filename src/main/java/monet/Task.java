@@ -1,5 +1,7 @@
 package monet;
 
+import java.time.LocalDateTime;
+
 /**
  * Represents a generic task. This is an abstract base class for specific task types
  * like Todo, Deadline, and Event.
@@ -8,6 +10,7 @@ public abstract class Task {
     protected String description;
     protected boolean isDone;
     protected Priority priority;
+    protected long id;
 
     /**
      * Constructs a general Task from user input.
@@ -30,6 +33,21 @@ public abstract class Task {
         this(description, Priority.MEDIUM);
     }
 
+    /**
+     * Returns the id of this task.
+     * Ids are assigned by the TaskList (or by Storage when loading) and are used to refer to
+     * a task in the storage journal regardless of its current position in the list.
+     *
+     * @return The id of the task, or 0 if no id has been assigned yet.
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
     public String getDescription() {
         return this.description;
     }
@@ -42,6 +60,10 @@ public abstract class Task {
         return (isDone ? "X" : " "); // mark done task with X or leave it blank
     }
 
+    public boolean isDone() {
+        return this.isDone;
+    }
+
     /**
      * Marks the task as done.
      */
@@ -56,6 +78,28 @@ public abstract class Task {
         this.isDone = false;
     }
 
+    /**
+     * Returns a copy of this task, with the same id, that is done or not as given.
+     * A TaskList never changes a task it holds, as readers may still be showing an older version of the list,
+     * so marking a task puts such a copy in its place.
+     *
+     * @param isDone Whether the copy is done.
+     * @return The copy.
+     */
+    public Task withDone(boolean isDone) {
+        Task copy = copy();
+        copy.isDone = isDone;
+        copy.id = this.id;
+        return copy;
+    }
+
+    /**
+     * Returns a new task of the same type, description, time and priority as this one.
+     *
+     * @return The new task, not done and without an id.
+     */
+    protected abstract Task copy();
+
     /**
      * Returns a character representing the priority.
      * @return 'H' for HIGH, 'M' for MEDIUM, 'L' for LOW.
@@ -68,6 +112,16 @@ public abstract class Task {
         return this.priority;
     }
 
+    /**
+     * Returns the time this task is scheduled for, used to order tasks in time.
+     * Only Deadlines and Events have one.
+     *
+     * @return The scheduled time, or null if the task has none.
+     */
+    public LocalDateTime getScheduledTime() {
+        return null;
+    }
+
     @Override
     public String toString() {
         return "[" + getPriorityIcon() + "]" + "[" + getStatusIcon() + "] " + this.description;
@@ -0,0 +1,396 @@
+package monet;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The tasks of a list stored column by column in primitive arrays, instead of as one object per task.
+ *
+ * The columns are:
+ * - [Flags]        4 bits per task, 16 tasks to a long: bit 0 is the done status, bits 1-2 the priority ordinal
+ * - [Type]         one byte per task, 'T', 'D' or 'E', as in the binary snapshot format
+ * - [Id]           the stable id of each task
+ * - [Start, End]   epoch seconds (UTC) of a Deadline's 'by' time, or an Event's 'from' and 'to' times;
+ *                  sub-second parts, which the app never produces itself, go in arrays made only when needed
+ * - [Description]  the UTF-8 bytes of every description, one after another in a shared arena,
+ *                  located by an offset and a length per task
+ *
+ * This takes a few dozen bytes per task plus the description, where the objects take well over a hundred.
+ * Tasks are handed out as new Task objects built from the columns, so changing one of them does not change
+ * the list; use setDone() instead. Inserting or deleting shifts the columns after the task, which is a fast
+ * array copy, and the arena space of deleted descriptions is reclaimed once it makes up half of the arena.
+ */
+class TaskColumns {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int FLAG_BITS = 4;
+    private static final int FLAGS_PER_WORD = Long.SIZE / FLAG_BITS;
+    private static final long FLAG_MASK = (1L << FLAG_BITS) - 1;
+    private static final int DONE_FLAG = 1;
+    private static final int PRIORITY_SHIFT = 1;
+    private static final int PRIORITY_MASK = 0b110;
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private int size;
+    private long[] flags = new long[1];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] startSeconds = new long[INITIAL_CAPACITY];
+    private long[] endSeconds = new long[INITIAL_CAPACITY];
+    private int[] startNanos;
+    private int[] endNanos;
+    private int[] descriptionOffsets = new int[INITIAL_CAPACITY];
+    private int[] descriptionLengths = new int[INITIAL_CAPACITY];
+    private byte[] arena = new byte[INITIAL_CAPACITY * 32];
+    private int arenaSize;
+    private int arenaGarbage;
+
+    /**
+     * Constructs columns holding the given tasks in order.
+     *
+     * @param tasks The tasks to hold.
+     */
+    TaskColumns(List<Task> tasks) {
+        ensureCapacity(tasks.size());
+        tasks.forEach(this::add);
+    }
+
+    /**
+     * Constructs a copy of the columns, which later changes to either do not affect.
+     *
+     * @param source The columns to copy.
+     */
+    TaskColumns(TaskColumns source) {
+        size = source.size;
+        flags = source.flags.clone();
+        types = source.types.clone();
+        ids = source.ids.clone();
+        startSeconds = source.startSeconds.clone();
+        endSeconds = source.endSeconds.clone();
+        startNanos = source.startNanos == null ? null : source.startNanos.clone();
+        endNanos = source.endNanos == null ? null : source.endNanos.clone();
+        descriptionOffsets = source.descriptionOffsets.clone();
+        descriptionLengths = source.descriptionLengths.clone();
+        arena = source.arena.clone();
+        arenaSize = source.arenaSize;
+        arenaGarbage = source.arenaGarbage;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends a task to the columns. The task object itself is not kept.
+     *
+     * @param task The task to append.
+     */
+    void add(Task task) {
+        ensureCapacity(size + 1);
+        int index = size++;
+        types[index] = type(task);
+        ids[index] = task.getId();
+        setFlags(index, (task.isDone() ? DONE_FLAG : 0) | task.getPriority().ordinal() << PRIORITY_SHIFT);
+        if (task instanceof Deadline) {
+            setStart(index, ((Deadline) task).by);
+        } else if (task instanceof Event) {
+            setStart(index, ((Event) task).from);
+            setEnd(index, ((Event) task).to);
+        }
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        if (arenaSize + description.length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + description.length));
+        }
+        System.arraycopy(description, 0, arena, arenaSize, description.length);
+        descriptionOffsets[index] = arenaSize;
+        descriptionLengths[index] = description.length;
+        arenaSize += description.length;
+    }
+
+    /**
+     * Inserts a task at the given position, shifting every later task up by one.
+     *
+     * @param index The 0-based position, from 0 to size() inclusive.
+     * @param task The task to insert.
+     */
+    void add(int index, Task task) {
+        assert index >= 0 && index <= size : "Column index is out of bounds";
+        add(task);
+        int last = size - 1;
+        if (index == last) {
+            return;
+        }
+        // Rotate the appended task down into place; its description stays where it is in the arena.
+        int flagsOfTask = getFlags(last);
+        for (int i = last; i > index; i--) {
+            setFlags(i, getFlags(i - 1));
+        }
+        setFlags(index, flagsOfTask);
+        rotate(types, index, last);
+        rotate(ids, index, last);
+        rotate(startSeconds, index, last);
+        rotate(endSeconds, index, last);
+        if (startNanos != null) {
+            rotate(startNanos, index, last);
+            rotate(endNanos, index, last);
+        }
+        rotate(descriptionOffsets, index, last);
+        rotate(descriptionLengths, index, last);
+    }
+
+    /**
+     * Builds a new Task object holding the task at the given position.
+     *
+     * @param index The 0-based position.
+     * @return A Task equal to the stored one.
+     */
+    Task get(int index) {
+        checkIndex(index);
+        String description = new String(arena, descriptionOffsets[index], descriptionLengths[index],
+                StandardCharsets.UTF_8);
+        Task task;
+        switch (types[index]) {
+        case 'D':
+            task = new Deadline(description, getStart(index), getPriority(index));
+            break;
+        case 'E':
+            task = new Event(description, getStart(index), getEnd(index), getPriority(index));
+            break;
+        default:
+            task = new Todo(description, getPriority(index));
+            break;
+        }
+        if (isDone(index)) {
+            task.markAsDone();
+        }
+        task.setId(ids[index]);
+        return task;
+    }
+
+    /**
+     * Removes the task at the given position, shifting every later task down by one.
+     *
+     * @param index The 0-based position.
+     * @return A Task object holding the removed task.
+     */
+    Task remove(int index) {
+        Task removed = get(index);
+        int removedLength = descriptionLengths[index];
+        int after = size - index - 1;
+        System.arraycopy(types, index + 1, types, index, after);
+        System.arraycopy(ids, index + 1, ids, index, after);
+        System.arraycopy(startSeconds, index + 1, startSeconds, index, after);
+        System.arraycopy(endSeconds, index + 1, endSeconds, index, after);
+        if (startNanos != null) {
+            System.arraycopy(startNanos, index + 1, startNanos, index, after);
+            System.arraycopy(endNanos, index + 1, endNanos, index, after);
+        }
+        System.arraycopy(descriptionOffsets, index + 1, descriptionOffsets, index, after);
+        System.arraycopy(descriptionLengths, index + 1, descriptionLengths, index, after);
+        removeFlags(index);
+        arenaGarbage += removedLength;
+        size--;
+        if (arenaGarbage > arenaSize / 2) {
+            compactArena();
+        }
+        return removed;
+    }
+
+    void setDone(int index, boolean isDone) {
+        checkIndex(index);
+        setFlags(index, (getFlags(index) & ~DONE_FLAG) | (isDone ? DONE_FLAG : 0));
+    }
+
+    boolean isDone(int index) {
+        return (getFlags(index) & DONE_FLAG) != 0;
+    }
+
+    Priority getPriority(int index) {
+        return PRIORITIES[(getFlags(index) & PRIORITY_MASK) >>> PRIORITY_SHIFT];
+    }
+
+    long getId(int index) {
+        return ids[index];
+    }
+
+    boolean isEvent(int index) {
+        return types[index] == 'E';
+    }
+
+    /**
+     * Returns whether the task has a scheduled time, that is, whether it is a Deadline or an Event.
+     */
+    boolean isScheduled(int index) {
+        return types[index] != 'T';
+    }
+
+    /**
+     * Returns the scheduled time of a Deadline or Event, as Task.getScheduledTime() would.
+     */
+    LocalDateTime getStart(int index) {
+        return LocalDateTime.ofEpochSecond(startSeconds[index], startNanos == null ? 0 : startNanos[index],
+                ZoneOffset.UTC);
+    }
+
+    LocalDateTime getEnd(int index) {
+        return LocalDateTime.ofEpochSecond(endSeconds[index], endNanos == null ? 0 : endNanos[index],
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * Compares the scheduled time of a Deadline or Event with the given time, without building a LocalDateTime.
+     *
+     * @param index The position of the task.
+     * @param seconds The epoch seconds (UTC) of the time to compare with.
+     * @param nanos The nanoseconds of the time to compare with.
+     * @return A negative number, zero or a positive number as the task is scheduled before, at or after the time.
+     */
+    int compareStart(int index, long seconds, int nanos) {
+        int bySeconds = Long.compare(startSeconds[index], seconds);
+        return bySeconds != 0 ? bySeconds : Integer.compare(startNanos == null ? 0 : startNanos[index], nanos);
+    }
+
+    /**
+     * Compares the scheduled times of two Deadlines or Events.
+     */
+    int compareStarts(int first, int second) {
+        return compareStart(first, startSeconds[second], startNanos == null ? 0 : startNanos[second]);
+    }
+
+    /**
+     * Returns whether the description of the task contains the given UTF-8 bytes.
+     * UTF-8 never encodes one character as part of another, so this matches String.contains().
+     *
+     * @param index The position of the task.
+     * @param keyword The UTF-8 bytes of the keyword.
+     * @return True if the description contains the keyword.
+     */
+    boolean descriptionContains(int index, byte[] keyword) {
+        int from = descriptionOffsets[index];
+        int last = from + descriptionLengths[index] - keyword.length;
+        for (int start = from; start <= last; start++) {
+            if (Arrays.equals(arena, start, start + keyword.length, keyword, 0, keyword.length)) {
+                return true;
+            }
+        }
+        return keyword.length == 0;
+    }
+
+    /**
+     * Moves the value at last to index, shifting the values from index on up by one.
+     */
+    private static void rotate(byte[] column, int index, int last) {
+        byte value = column[last];
+        System.arraycopy(column, index, column, index + 1, last - index);
+        column[index] = value;
+    }
+
+    private static void rotate(long[] column, int index, int last) {
+        long value = column[last];
+        System.arraycopy(column, index, column, index + 1, last - index);
+        column[index] = value;
+    }
+
+    private static void rotate(int[] column, int index, int last) {
+        int value = column[last];
+        System.arraycopy(column, index, column, index + 1, last - index);
+        column[index] = value;
+    }
+
+    private static byte type(Task task) {
+        if (task instanceof Deadline) {
+            return 'D';
+        }
+        return task instanceof Event ? (byte) 'E' : (byte) 'T';
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    private void setStart(int index, LocalDateTime time) {
+        startSeconds[index] = time.toEpochSecond(ZoneOffset.UTC);
+        if (time.getNano() != 0 || startNanos != null) {
+            allocateNanos();
+            startNanos[index] = time.getNano();
+        }
+    }
+
+    private void setEnd(int index, LocalDateTime time) {
+        endSeconds[index] = time.toEpochSecond(ZoneOffset.UTC);
+        if (time.getNano() != 0 || endNanos != null) {
+            allocateNanos();
+            endNanos[index] = time.getNano();
+        }
+    }
+
+    private void allocateNanos() {
+        if (startNanos == null) {
+            startNanos = new int[ids.length];
+            endNanos = new int[ids.length];
+        }
+    }
+
+    private int getFlags(int index) {
+        return (int) (flags[index / FLAGS_PER_WORD] >>> (index % FLAGS_PER_WORD * FLAG_BITS) & FLAG_MASK);
+    }
+
+    private void setFlags(int index, int value) {
+        int shift = index % FLAGS_PER_WORD * FLAG_BITS;
+        int word = index / FLAGS_PER_WORD;
+        flags[word] = flags[word] & ~(FLAG_MASK << shift) | (long) value << shift;
+    }
+
+    /**
+     * Removes the flags of one task, shifting the flags of every later task down by one slot.
+     */
+    private void removeFlags(int index) {
+        int word = index / FLAGS_PER_WORD;
+        int shift = index % FLAGS_PER_WORD * FLAG_BITS;
+        long below = shift == 0 ? 0 : -1L >>> (Long.SIZE - shift);
+        flags[word] = flags[word] & below | flags[word] >>> FLAG_BITS & ~below;
+        int lastWord = (size - 1) / FLAGS_PER_WORD;
+        for (int next = word + 1; next <= lastWord; next++) {
+            flags[next - 1] |= (flags[next] & FLAG_MASK) << (Long.SIZE - FLAG_BITS);
+            flags[next] >>>= FLAG_BITS;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        flags = Arrays.copyOf(flags, (newCapacity + FLAGS_PER_WORD - 1) / FLAGS_PER_WORD);
+        types = Arrays.copyOf(types, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        startSeconds = Arrays.copyOf(startSeconds, newCapacity);
+        endSeconds = Arrays.copyOf(endSeconds, newCapacity);
+        if (startNanos != null) {
+            startNanos = Arrays.copyOf(startNanos, newCapacity);
+            endNanos = Arrays.copyOf(endNanos, newCapacity);
+        }
+        descriptionOffsets = Arrays.copyOf(descriptionOffsets, newCapacity);
+        descriptionLengths = Arrays.copyOf(descriptionLengths, newCapacity);
+    }
+
+    /**
+     * Copies the live descriptions into a new arena, dropping the bytes of deleted ones.
+     */
+    private void compactArena() {
+        byte[] compacted = new byte[Math.max(INITIAL_CAPACITY, arenaSize - arenaGarbage)];
+        int compactedSize = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(arena, descriptionOffsets[i], compacted, compactedSize, descriptionLengths[i]);
+            descriptionOffsets[i] = compactedSize;
+            compactedSize += descriptionLengths[i];
+        }
+        arena = compacted;
+        arenaSize = compactedSize;
+        arenaGarbage = 0;
+    }
+}
@@ -1,20 +1,55 @@
 package monet;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 /**
  * Contains the task list and provides operations to manipulate it.
- * This class encapsulates the ArrayList of tasks.
+ * The tasks are held in an order-statistic tree, so getting or deleting the task at any position takes
+ * O(log N) however long the list grows. Every task also carries a stable id that does not change when
+ * the tasks before it are deleted.
+ * Task ids increase along the list, which lets the indexes below return their results in list order.
+ * The lists returned by the time queries are ordered by time instead, and are meant for display.
+ *
+ * A list made by columnar() holds its tasks in primitive columns instead (see TaskColumns), which takes a
+ * fraction of the memory for very long lists. Such a list keeps no indexes and answers every query with a
+ * scan over the columns, and its getTask() returns a new copy of the task on every call.
+ *
+ * The tasks and indexes of an object-backed list are immutable structures, and every change publishes a new
+ * version of them that shares all but O(log N) of its nodes with the last. Queries read whichever version is
+ * current when they start, so they never wait for a change and never see one half done; snapshot() holds on
+ * to a version for a series of queries. Changes are made one at a time. Tasks in the list are never changed
+ * in place either: marking a task puts a copy in its place.
+ *
+ * A columnar list changes its columns in place, so it must not be queried while it is being changed.
  */
 public class TaskList {
-    private ArrayList<Task> tasks;
+    /** The system property that makes the app hold its task list in columns, if set to true. */
+    public static final String COLUMNAR_PROPERTY = "monet.columnar";
+
+    // Exactly one of the two backings is set.
+    private volatile Version version;
+    private TaskColumns columns;
+    private long nextId;
+    // The list this one is a snapshot of, or this list itself. Changes to either, and index builds, lock it.
+    private final TaskList origin;
 
     /**
      * Constructs an empty TaskList.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this.version = new Version(TaskSequence.empty(), null, null, null);
+        this.nextId = 1;
+        this.origin = this;
     }
 
     /**
@@ -23,32 +58,166 @@ public class TaskList {
      * @param tasks An ArrayList of tasks to initialize the list with.
      */
     public TaskList(ArrayList<Task> tasks) {
-        this.tasks = tasks;
+        this(tasks, false);
+    }
+
+    private TaskList(ArrayList<Task> tasks, boolean isColumnar) {
+        this.origin = this;
+        // New ids must never collide with the ids of the pre-loaded tasks.
+        this.nextId = tasks.stream().mapToLong(Task::getId).max().orElse(0) + 1;
+        for (Task task : tasks) {
+            if (task.getId() == 0) {
+                task.setId(nextId++);
+            }
+        }
+        if (isColumnar) {
+            this.columns = new TaskColumns(tasks);
+        } else {
+            this.version = new Version(TaskSequence.of(tasks), null, null, null);
+        }
+    }
+
+    private TaskList(TaskList source) {
+        this.version = source.version;
+        this.columns = source.columns == null ? null : new TaskColumns(source.columns);
+        this.nextId = source.nextId;
+        this.origin = source.origin;
+    }
+
+    /**
+     * Constructs a TaskList that holds the given tasks in primitive columns rather than as objects.
+     * The list does not keep the task objects, so changes to them are not seen by the list.
+     *
+     * @param tasks The tasks to initialize the list with.
+     * @return A new column-backed TaskList.
+     */
+    public static TaskList columnar(ArrayList<Task> tasks) {
+        return new TaskList(tasks, true);
+    }
+
+    /**
+     * Returns a copy of the list as it is now, in O(1), sharing the tasks and indexes built so far.
+     * Changes to either list do not show in the other, but an index built by a query on the copy is kept
+     * by this list as well, as long as this list has not changed since.
+     * A columnar list cannot share its columns, which change in place, so its copy takes O(N) to make.
+     *
+     * @return The copy.
+     */
+    public TaskList snapshot() {
+        synchronized (origin) {
+            return new TaskList(this);
+        }
+    }
+
+    /**
+     * Returns whether the list holds its tasks in columns, made by columnar().
+     *
+     * @return True if the list is columnar.
+     */
+    public boolean isColumnar() {
+        return columns != null;
     }
 
+    /**
+     * Returns the tasks in list order.
+     *
+     * @return A new ArrayList of the tasks; changing it does not change this list.
+     */
     public ArrayList<Task> getTasks() {
-        return this.tasks;
+        if (columns != null) {
+            return scanColumns(i -> true);
+        }
+        return version.tasks().toList();
     }
 
     public int getSize() {
-        return this.tasks.size();
+        return columns != null ? columns.size() : version.tasks().size();
     }
 
+    /**
+     * Returns the task at a specified index, in O(log N).
+     *
+     * @param index The 0-based index of the task.
+     * @return The task at that index.
+     */
     public Task getTask(int index) {
-        return this.tasks.get(index);
+        return columns != null ? columns.get(index) : version.tasks().get(index);
     }
 
     /**
-     * Adds a task to the task list.
+     * Marks the task at a specified index as done.
+     *
+     * @param index The 0-based index of the task.
+     * @return The task, now marked as done. This is a new Task object in place of the old one.
+     */
+    public Task markTask(int index) {
+        return setTaskDone(index, true);
+    }
+
+    /**
+     * Marks the task at a specified index as not done.
+     *
+     * @param index The 0-based index of the task.
+     * @return The task, now marked as not done. This is a new Task object in place of the old one.
+     */
+    public Task unmarkTask(int index) {
+        return setTaskDone(index, false);
+    }
+
+    /**
+     * Adds a task to the task list, assigning it a fresh id if it does not have one yet.
      *
      * @param task The Task object to be added to the list.
      */
     public void addTask(Task task) {
-        this.tasks.add(task);
+        synchronized (origin) {
+            if (task.getId() == 0) {
+                task.setId(nextId++);
+            }
+            nextId = Math.max(nextId, task.getId() + 1);
+            if (columns != null) {
+                columns.add(task);
+                return;
+            }
+            Version current = version;
+            version = new Version(current.tasks().add(task),
+                    current.trigramIndex() == null ? null : current.trigramIndex().add(task),
+                    current.timeIndex() == null ? null : current.timeIndex().add(task),
+                    current.eventIndex() == null || !(task instanceof Event) ? current.eventIndex()
+                            : current.eventIndex().add((Event) task));
+        }
+    }
+
+    /**
+     * Inserts a task at a specified index, keeping its id, as when a deletion is undone.
+     * Ids increase along the list, so the id must lie between those of the new neighbours, as it does for a
+     * task deleted from this very position.
+     *
+     * @param index The 0-based index, from 0 to getSize() inclusive.
+     * @param task The task to insert. It must have an id.
+     */
+    public void insertTask(int index, Task task) {
+        assert index >= 0 && index <= getSize() : "Task index is out of bounds";
+        assert task.getId() != 0 : "Inserted task must have an id";
+        synchronized (origin) {
+            assert index == 0 || getTask(index - 1).getId() < task.getId() : "Inserted task id is out of order";
+            assert index == getSize() || task.getId() < getTask(index).getId() : "Inserted task id is out of order";
+            nextId = Math.max(nextId, task.getId() + 1);
+            if (columns != null) {
+                columns.add(index, task);
+                return;
+            }
+            Version current = version;
+            version = new Version(current.tasks().add(index, task),
+                    current.trigramIndex() == null ? null : current.trigramIndex().add(task),
+                    current.timeIndex() == null ? null : current.timeIndex().add(task),
+                    current.eventIndex() == null || !(task instanceof Event) ? current.eventIndex()
+                            : current.eventIndex().add((Event) task));
+        }
     }
 
     /**
-     * Removes a task from the task list at a specified index.
+     * Removes a task from the task list at a specified index, in O(log N).
      *
      * @param index The 0-based index of the task to be removed.
      * @return The Task object that was removed from the list.
@@ -56,37 +225,304 @@ public class TaskList {
      */
     public Task deleteTask(int index) {
         // We assert that the index is valid. This should always be true.
-        assert index >= 0 && index < this.tasks.size() : "Task index is out of bounds";
-        return this.tasks.remove(index);
+        assert index >= 0 && index < getSize() : "Task index is out of bounds";
+        synchronized (origin) {
+            if (columns != null) {
+                return columns.remove(index);
+            }
+            Version current = version;
+            Task removed = current.tasks().get(index);
+            version = new Version(current.tasks().remove(index),
+                    current.trigramIndex() == null ? null : current.trigramIndex().remove(removed),
+                    current.timeIndex() == null ? null : current.timeIndex().remove(removed),
+                    current.eventIndex() == null || !(removed instanceof Event) ? current.eventIndex()
+                            : current.eventIndex().remove((Event) removed));
+            return removed;
+        }
     }
 
     /**
      * Finds and returns a list of tasks that contain the given keyword in their description.
-     * Uses Java Streams.
+     * Keywords of three or more characters are looked up in a trigram index, and only the candidates
+     * it returns are checked, so the results are the same as a full contains() scan.
      *
      * @param keyword The keyword to search for within task descriptions.
-     * @return A new TaskList containing only the matching tasks.
+     * @return A new TaskList containing only the matching tasks, in list order.
      */
     public TaskList findTasks(String keyword) {
-        // Convert the list to a stream, filter based on the condition, and collect the results into a new list.
-        ArrayList<Task> foundTasksList = this.tasks.stream()
-                .filter(task -> task.getDescription().contains(keyword))
-                .collect(Collectors.toCollection(ArrayList::new));
-        return new TaskList(foundTasksList);
+        if (columns != null) {
+            byte[] keywordBytes = keyword.getBytes(StandardCharsets.UTF_8);
+            return new TaskList(scanColumns(i -> columns.descriptionContains(i, keywordBytes)));
+        }
+        Version current = version;
+        if (!TrigramIndex.canSearch(keyword)) {
+            // Convert the list to a stream, filter based on the condition, and collect the results into a new list.
+            ArrayList<Task> foundTasksList = StreamSupport.stream(current.tasks().spliterator(), false)
+                    .filter(task -> task.getDescription().contains(keyword))
+                    .collect(Collectors.toCollection(ArrayList::new));
+            return new TaskList(foundTasksList);
+        }
+        return new TaskList(new ArrayList<>(getTrigramIndex(current).find(keyword)));
     }
 
     /**
      * Filters the current task list to find tasks of a specific priority level.
      * The original list is not modified.
+     * Skips the parts of the list without such tasks, so it takes little more than the number of matches.
      *
      * @param priority The priority level (e.g., HIGH, MEDIUM, LOW) to filter tasks by.
      * @return A new TaskList containing only the tasks that match the specified priority.
      */
     public TaskList filterByPriority(Priority priority) {
-        ArrayList<Task> foundTasksList = this.tasks.stream()
-                .filter(task -> task.getPriority() == priority)
-                .collect(Collectors.toCollection(ArrayList::new));
-        return new TaskList(foundTasksList);
+        if (columns != null) {
+            return new TaskList(scanColumns(i -> columns.getPriority(i) == priority));
+        }
+        return new TaskList(version.tasks().findByPriority(priority));
+    }
+
+    /**
+     * Returns the number of tasks with the given priority.
+     *
+     * @param priority The priority level to count.
+     * @return The number of tasks in the list with that priority.
+     */
+    public int countByPriority(Priority priority) {
+        if (columns != null) {
+            int count = 0;
+            for (int i = 0; i < columns.size(); i++) {
+                count += columns.getPriority(i) == priority ? 1 : 0;
+            }
+            return count;
+        }
+        return version.tasks().count(priority);
+    }
+
+    /**
+     * Finds the deadlines and events scheduled strictly before the given time.
+     *
+     * @param time The exclusive upper bound.
+     * @return A new TaskList of the matching tasks, earliest first.
+     */
+    public TaskList findDueBefore(LocalDateTime time) {
+        if (columns != null) {
+            return new TaskList(scanScheduled(null, false, time, false, Integer.MAX_VALUE));
+        }
+        return new TaskList(getTimeIndex(version).findBetween(null, false, time, false, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Finds the deadlines and events scheduled between the two times, both inclusive.
+     *
+     * @param from The start of the range.
+     * @param to The end of the range.
+     * @return A new TaskList of the matching tasks, earliest first.
+     */
+    public TaskList findDueBetween(LocalDateTime from, LocalDateTime to) {
+        if (columns != null) {
+            return new TaskList(scanScheduled(from, true, to, true, Integer.MAX_VALUE));
+        }
+        return new TaskList(getTimeIndex(version).findBetween(from, true, to, true, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Finds the next deadlines and events scheduled at or after the given time.
+     *
+     * @param now The time to look ahead from.
+     * @param count The maximum number of tasks to return.
+     * @return A new TaskList of at most count tasks, earliest first.
+     */
+    public TaskList findUpcoming(LocalDateTime now, int count) {
+        if (columns != null) {
+            return new TaskList(scanScheduled(now, true, null, false, count));
+        }
+        return new TaskList(getTimeIndex(version).findBetween(now, true, null, false, count));
+    }
+
+    /**
+     * Finds the other events in the list whose time span overlaps the given event.
+     *
+     * @param event The event to check, which may or may not be in the list.
+     * @return A new TaskList of the overlapping events, ordered by start time.
+     */
+    public TaskList findOverlappingEvents(Event event) {
+        ArrayList<Task> overlapping = new ArrayList<>();
+        for (Event other : getEventIndex(version).findOverlapping(IntervalTree.start(event), IntervalTree.end(event))) {
+            // Compare ids rather than references, as a column-backed list hands out copies.
+            if (other.getId() != event.getId()) {
+                overlapping.add(other);
+            }
+        }
+        return new TaskList(overlapping);
+    }
+
+    /**
+     * Finds every pair of events in the list whose time spans overlap.
+     *
+     * @return The overlapping pairs, each as the earlier-starting event followed by the later one.
+     */
+    public List<Event[]> findConflicts() {
+        return getEventIndex(version).findAllOverlaps();
+    }
+
+    /**
+     * Finds the periods within the given window that no event in the list occupies.
+     *
+     * @param from The start of the window.
+     * @param to The end of the window.
+     * @return The free slots as [start, end] pairs, in time order.
+     */
+    public List<LocalDateTime[]> findFreeSlots(LocalDateTime from, LocalDateTime to) {
+        return getEventIndex(version).findFreeSlots(from, to);
+    }
+
+    private Task setTaskDone(int index, boolean isDone) {
+        synchronized (origin) {
+            if (columns != null) {
+                columns.setDone(index, isDone);
+                return columns.get(index);
+            }
+            Version current = version;
+            Task task = current.tasks().get(index).withDone(isDone);
+            // The copy has the same id, time and description, so it takes the old task's place in every index.
+            version = new Version(current.tasks().set(index, task),
+                    current.trigramIndex() == null ? null : current.trigramIndex().add(task),
+                    current.timeIndex() == null ? null : current.timeIndex().add(task),
+                    current.eventIndex() == null || !(task instanceof Event) ? current.eventIndex()
+                            : current.eventIndex().add((Event) task));
+            return task;
+        }
     }
 
+    /**
+     * Returns copies of the tasks in the columns that pass the test, in list order.
+     */
+    private ArrayList<Task> scanColumns(IntPredicate test) {
+        ArrayList<Task> found = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            if (test.test(i)) {
+                found.add(columns.get(i));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns copies of the deadlines and events in the columns scheduled in the given range, earliest first,
+     * with the same bounds as TimeIndex.findBetween().
+     */
+    private ArrayList<Task> scanScheduled(LocalDateTime from, boolean isFromInclusive, LocalDateTime to,
+            boolean isToInclusive, int limit) {
+        ArrayList<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            if (!columns.isScheduled(i)) {
+                continue;
+            }
+            int afterFrom = from == null ? 1 : compareStart(i, from);
+            int beforeTo = to == null ? -1 : compareStart(i, to);
+            boolean isAfterFrom = afterFrom > 0 || isFromInclusive && afterFrom == 0;
+            boolean isBeforeTo = beforeTo < 0 || isToInclusive && beforeTo == 0;
+            if (isAfterFrom && isBeforeTo) {
+                positions.add(i);
+            }
+        }
+        // The sort is stable, so tasks scheduled at the same time stay in list order.
+        positions.sort(columns::compareStarts);
+        ArrayList<Task> found = new ArrayList<>();
+        for (int i = 0; i < positions.size() && i < limit; i++) {
+            found.add(columns.get(positions.get(i)));
+        }
+        return found;
+    }
+
+    private int compareStart(int index, LocalDateTime time) {
+        return columns.compareStart(index, time.toEpochSecond(ZoneOffset.UTC), time.getNano());
+    }
+
+    // Built on the first search, and rebuilt with the changes folded in once searches spend too long on them.
+    private TrigramIndex getTrigramIndex(Version current) {
+        TrigramIndex stale = current.trigramIndex();
+        return getIndex("trigram", current, Version::trigramIndex, TrigramIndex::isWorthRebuilding,
+                tasks -> stale == null ? TrigramIndex.of(tasks) : stale.rebuild(), Version::withTrigramIndex);
+    }
+
+    // Deadlines and event starts ordered by time.
+    private TimeIndex getTimeIndex(Version current) {
+        return getIndex("time", current, Version::timeIndex, index -> false, TimeIndex::of, Version::withTimeIndex);
+    }
+
+    // The time spans of all events, for overlap queries.
+    private IntervalTree getEventIndex(Version current) {
+        if (columns != null) {
+            // Columns keep no index, so build a throwaway one over copies of just the events.
+            FlightRecorderEvents.IndexRebuildEvent event = new FlightRecorderEvents.IndexRebuildEvent();
+            event.begin();
+            IntervalTree built = IntervalTree.of(scanColumns(columns::isEvent).stream().map(task -> (Event) task)
+                    .collect(Collectors.toList()));
+            event.finish("event", columns.size());
+            return built;
+        }
+        return getIndex("event", current, Version::eventIndex, index -> false, tasks -> IntervalTree.of(
+                StreamSupport.stream(tasks.spliterator(), false)
+                        .filter(task -> task instanceof Event)
+                        .map(task -> (Event) task)
+                        .collect(Collectors.toList())), Version::withEventIndex);
+    }
+
+    /**
+     * Returns an index of the version a query is reading, building it the first time it is needed so that result
+     * lists and short-lived lists never pay for it, and again whenever it says it is stale. The build runs under
+     * the same lock as changes. The new index is kept by this list and the one it is a snapshot of, unless they
+     * have changed since the version was read.
+     *
+     * @param name The name of the index, as recorded in the IndexRebuildEvent of a build.
+     * @param current The version being read.
+     * @param index Gets the index from a version, or null if it has not been built.
+     * @param isStale Tells whether a built index should be built again.
+     * @param build Builds the index over the tasks of a version.
+     * @param withIndex Returns a version with the index added.
+     * @return The index of the version.
+     */
+    private <T> T getIndex(String name, Version current, Function<Version, T> index, Predicate<T> isStale,
+            Function<TaskSequence, T> build, BiFunction<Version, T, Version> withIndex) {
+        T built = index.apply(current);
+        if (built != null && !isStale.test(built)) {
+            return built;
+        }
+        synchronized (origin) {
+            T kept = index.apply(origin.version);
+            if (origin.version.tasks() == current.tasks() && kept != null && !isStale.test(kept)) {
+                built = kept;
+            } else {
+                FlightRecorderEvents.IndexRebuildEvent event = new FlightRecorderEvents.IndexRebuildEvent();
+                event.begin();
+                built = build.apply(current.tasks());
+                event.finish(name, current.tasks().size());
+            }
+            for (TaskList list : List.of(origin, this)) {
+                T old = index.apply(list.version);
+                if (list.version.tasks() == current.tasks() && old != built && (old == null || isStale.test(old))) {
+                    list.version = withIndex.apply(list.version, built);
+                }
+            }
+            return built;
+        }
+    }
+
+    /**
+     * One version of an object-backed list: its tasks, and the indexes built for them so far, or null.
+     */
+    private record Version(TaskSequence tasks, TrigramIndex trigramIndex, TimeIndex timeIndex,
+            IntervalTree eventIndex) {
+        Version withTrigramIndex(TrigramIndex index) {
+            return new Version(tasks, index, timeIndex, eventIndex);
+        }
+
+        Version withTimeIndex(TimeIndex index) {
+            return new Version(tasks, trigramIndex, index, eventIndex);
+        }
+
+        Version withEventIndex(IntervalTree index) {
+            return new Version(tasks, trigramIndex, timeIndex, index);
+        }
+    }
 }
@@ -0,0 +1,200 @@
+package monet;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The tasks of a list in order, stored in an order-statistic tree.
+ *
+ * The tree is a persistent treap keyed implicitly by position: every node remembers the size of its subtree, so the
+ * task at any position can be found, inserted or removed in O(log N) without shifting the tasks after it.
+ * Positions are 0-based, like those of an ArrayList.
+ *
+ * Every node also counts the tasks of each priority in its subtree, so the tasks of one priority are found
+ * by skipping the subtrees that have none, in O(k log(N / k)) for k results.
+ *
+ * The sequence is immutable: every change returns a new sequence that copies only the O(log N) nodes on the
+ * path to the change and shares all the others with this one. Any number of threads may read a sequence
+ * while a newer version of it is being made.
+ */
+class TaskSequence implements Iterable<Task> {
+    private static final TaskSequence EMPTY = new TaskSequence(null);
+
+    private final Node root;
+
+    private TaskSequence(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the empty sequence.
+     *
+     * @return A sequence holding no tasks.
+     */
+    static TaskSequence empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a sequence holding the given tasks in order, built in O(N).
+     *
+     * @param tasks The tasks to hold.
+     * @return The new sequence.
+     */
+    static TaskSequence of(List<Task> tasks) {
+        return new TaskSequence(PersistentTreap.build(tasks, Node::new));
+    }
+
+    int size() {
+        return PersistentTreap.size(root);
+    }
+
+    /**
+     * Returns the task at the given position.
+     *
+     * @param index The 0-based position.
+     * @return The task at that position.
+     */
+    Task get(int index) {
+        checkIndex(index, size());
+        return PersistentTreap.get(root, index);
+    }
+
+    /**
+     * Returns a sequence with the task appended to the end.
+     *
+     * @param task The task to append.
+     * @return The new sequence.
+     */
+    TaskSequence add(Task task) {
+        return new TaskSequence(PersistentTreap.merge(root, newNode(task)));
+    }
+
+    /**
+     * Returns a sequence with the task inserted at the given position, shifting every later task by one.
+     *
+     * @param index The 0-based position, from 0 to size() inclusive.
+     * @param task The task to insert.
+     * @return The new sequence.
+     */
+    TaskSequence add(int index, Task task) {
+        checkIndex(index, size() + 1);
+        return new TaskSequence(PersistentTreap.insertAt(root, index, newNode(task)));
+    }
+
+    /**
+     * Returns a sequence without the task at the given position.
+     *
+     * @param index The 0-based position.
+     * @return The new sequence.
+     */
+    TaskSequence remove(int index) {
+        checkIndex(index, size());
+        return new TaskSequence(PersistentTreap.deleteAt(root, index));
+    }
+
+    /**
+     * Returns a sequence with the task at the given position replaced.
+     *
+     * @param index The 0-based position.
+     * @param task The task to put there.
+     * @return The new sequence.
+     */
+    TaskSequence set(int index, Task task) {
+        checkIndex(index, size());
+        return new TaskSequence(PersistentTreap.set(root, index, task));
+    }
+
+    /**
+     * Returns the number of tasks with the given priority, in O(1).
+     */
+    int count(Priority priority) {
+        return count(root, priority);
+    }
+
+    /**
+     * Returns the tasks with the given priority, in order.
+     *
+     * @param priority The priority to look for.
+     * @return A new ArrayList of the matching tasks.
+     */
+    ArrayList<Task> findByPriority(Priority priority) {
+        ArrayList<Task> found = new ArrayList<>(count(priority));
+        collectByPriority(root, priority, found);
+        return found;
+    }
+
+    /**
+     * Returns the tasks in order as a new list.
+     *
+     * @return A new ArrayList of the tasks.
+     */
+    ArrayList<Task> toList() {
+        ArrayList<Task> list = new ArrayList<>(size());
+        forEach(list::add);
+        return list;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return PersistentTreap.iterator(root, task -> false);
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + bound);
+        }
+    }
+
+    private static int count(Node node, Priority priority) {
+        if (node == null) {
+            return 0;
+        }
+        switch (priority) {
+        case HIGH:
+            return node.highCount;
+        case LOW:
+            return node.lowCount;
+        default:
+            return node.size - node.highCount - node.lowCount;
+        }
+    }
+
+    private static Node newNode(Task task) {
+        return new Node(task, PersistentTreap.randomPriority(), null, null);
+    }
+
+    private static void collectByPriority(Node node, Priority priority, List<Task> found) {
+        if (count(node, priority) == 0) {
+            return; // No task in this subtree has the priority.
+        }
+        collectByPriority(node.left, priority, found);
+        if (node.element.getPriority() == priority) {
+            found.add(node.element);
+        }
+        collectByPriority(node.right, priority, found);
+    }
+
+    /**
+     * An immutable tree node holding one task and how many of the tasks in its subtree have a high or a low
+     * priority. The rest have a medium one.
+     */
+    private static class Node extends PersistentTreap.Node<Task, Node> {
+        private final int highCount;
+        private final int lowCount;
+
+        Node(Task task, int priority, Node left, Node right) {
+            super(task, priority, left, right);
+            this.highCount = (task.getPriority() == Priority.HIGH ? 1 : 0)
+                    + count(left, Priority.HIGH) + count(right, Priority.HIGH);
+            this.lowCount = (task.getPriority() == Priority.LOW ? 1 : 0)
+                    + count(left, Priority.LOW) + count(right, Priority.LOW);
+        }
+
+        @Override
+        protected Node with(Task task, Node left, Node right) {
+            return new Node(task, priority, left, right);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package monet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * Hosts a separate task list for each user in one process, keeping only the most recently used lists in memory.
+ *
+ * Each user's list lives in its own data file, [directory]/[user].txt, and is loaded through Storage when the
+ * user sends their first command. At most capacity lists are held at once: loading one more evicts the list used
+ * least recently, whose journaled changes are then folded into a fresh snapshot of its file before it is let go
+ * (see Monet.saveAndShutdown()). Changes are journaled as usual until then, so a crash loses none of them.
+ * All lists share one Ui for their responses, alongside the Parser and DateCodec, which are shared anyway.
+ * They also share one Metrics, so the stats command shows the figures of all users together.
+ *
+ * The registry may be used from several threads at once. A list evicted while commands for it are still
+ * running is written back when the last of them finishes, and a user whose list is still being written back
+ * waits for that to finish before the list is loaded again.
+ */
+public class TenantRegistry {
+    /** The number of lists held in memory when no other is given. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final Pattern USER_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String DATA_FILE_SUFFIX = ".txt";
+
+    private final File directory;
+    private final int capacity;
+    private final Ui ui = new Ui();
+    private final Metrics metrics = new Metrics();
+
+    // All fields below are guarded by this.
+    private final LinkedHashMap<String, Tenant> tenants = new LinkedHashMap<>(16, 0.75f, true);
+    private final HashMap<String, Tenant> evicted = new HashMap<>();
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long writeBacks;
+
+    /**
+     * Constructs a registry over the data files in the given directory.
+     *
+     * @param directory The directory holding one data file per user. It is created on the first save.
+     * @param capacity The largest number of lists held in memory at once.
+     */
+    public TenantRegistry(String directory, int capacity) {
+        assert capacity > 0 : "Registry must be able to hold a list";
+        this.directory = new File(directory);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Runs a command against a user's task list, loading the list first if it is not in memory.
+     *
+     * @param user The user whose list the command is for.
+     * @param input The command, as typed in the chat window.
+     * @return Monet's response.
+     * @throws MonetException If the user name is not valid.
+     */
+    public String getResponse(String user, String input) throws MonetException {
+        Tenant tenant = acquire(user);
+        try {
+            return tenant.getMonet().getResponse(input);
+        } finally {
+            release(tenant);
+        }
+    }
+
+    /**
+     * Returns how well the cache has been doing so far.
+     *
+     * @return The counters since the registry was constructed.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(tenants.size(), hits, misses, evictions, writeBacks);
+    }
+
+    /**
+     * Returns the metrics that every user's commands and writes are recorded in.
+     *
+     * @return The shared metrics.
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Writes back every list in memory and lets it go. Lists still in use are written back once their
+     * commands finish. The registry can still be used afterwards, and loads the lists again as needed.
+     */
+    public void close() {
+        List<Tenant> idle = new ArrayList<>();
+        synchronized (this) {
+            for (Tenant tenant : tenants.values()) {
+                evict(tenant, idle);
+            }
+            tenants.clear();
+        }
+        idle.forEach(this::writeBack);
+    }
+
+    private Tenant acquire(String user) throws MonetException {
+        if (!USER_NAME.matcher(user).matches()) {
+            throw new MonetException("Thy user name must beest 1 to 64 letters, digits, '-' or '_'.");
+        }
+        Tenant tenant;
+        List<Tenant> idle = new ArrayList<>();
+        synchronized (this) {
+            tenant = tenants.get(user);
+            if (tenant != null) {
+                hits++;
+            } else {
+                misses++;
+                tenant = new Tenant(user, evicted.get(user));
+                tenants.put(user, tenant);
+                Iterator<Tenant> leastRecentlyUsed = tenants.values().iterator();
+                while (tenants.size() > capacity) {
+                    evict(leastRecentlyUsed.next(), idle);
+                    leastRecentlyUsed.remove();
+                }
+            }
+            tenant.activeCommands++;
+        }
+        // Write back outside the lock, so that other users need not wait for the disk.
+        idle.forEach(this::writeBack);
+        return tenant;
+    }
+
+    private void release(Tenant tenant) {
+        synchronized (this) {
+            tenant.activeCommands--;
+            if (!tenant.isEvicted || tenant.activeCommands > 0) {
+                return;
+            }
+        }
+        writeBack(tenant);
+    }
+
+    /**
+     * Marks a tenant as evicted, and adds it to idle if no command is using it.
+     */
+    private void evict(Tenant tenant, List<Tenant> idle) {
+        assert Thread.holdsLock(this);
+        evictions++;
+        tenant.isEvicted = true;
+        evicted.put(tenant.user, tenant);
+        if (tenant.activeCommands == 0) {
+            idle.add(tenant);
+        }
+    }
+
+    private void writeBack(Tenant tenant) {
+        boolean hasChanges = tenant.saveAndShutdown();
+        synchronized (this) {
+            if (hasChanges) {
+                writeBacks++;
+            }
+            evicted.remove(tenant.user, tenant);
+        }
+        tenant.writtenBack.complete(null);
+    }
+
+    /**
+     * The counters of a registry.
+     *
+     * @param size The number of lists in memory.
+     * @param hits The number of commands whose list was already in memory.
+     * @param misses The number of commands that had to load their list.
+     * @param evictions The number of lists let go to make room for others.
+     * @param writeBacks The number of evicted lists that had changes to write back.
+     */
+    public record Stats(int size, long hits, long misses, long evictions, long writeBacks) {
+        /**
+         * Returns the share of commands whose list was already in memory.
+         *
+         * @return A number from 0 to 1, or 0 before the first command.
+         */
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("lists in memory: %d%nhits: %d%nmisses: %d%nhit rate: %.1f%%%n"
+                    + "evictions: %d%nwrite-backs: %d", size, hits, misses, hitRate() * 100, evictions, writeBacks);
+        }
+    }
+
+    /**
+     * One user's list. It is loaded by the first command that needs it rather than under the registry lock.
+     */
+    private class Tenant {
+        private final String user;
+        private final CompletableFuture<Void> writtenBack = new CompletableFuture<>();
+        private Tenant previous; // The evicted tenant of the same user, which must be written back first.
+        private Monet monet;
+
+        // Guarded by the registry.
+        private int activeCommands;
+        private boolean isEvicted;
+
+        Tenant(String user, Tenant previous) {
+            this.user = user;
+            this.previous = previous;
+        }
+
+        synchronized Monet getMonet() {
+            if (monet == null) {
+                if (previous != null) {
+                    previous.writtenBack.join();
+                    previous = null;
+                }
+                monet = new Monet(new File(directory, user + DATA_FILE_SUFFIX).getPath(), ui, metrics);
+            }
+            return monet;
+        }
+
+        synchronized boolean saveAndShutdown() {
+            return monet != null && monet.saveAndShutdown();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package monet;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * A sorted index of deadlines and event start times.
+ *
+ * Range queries walk only the matching part of the tree, so they cost O(log N + k) for k results.
+ * Tasks scheduled at the same time are kept in list order. Todos have no time and are never indexed.
+ * The index is immutable: adding or removing a task returns a new index that shares most of this one.
+ */
+class TimeIndex {
+    private static final Comparator<Task> BY_TIME = Comparator.comparing(Task::getScheduledTime)
+            .thenComparingLong(Task::getId);
+
+    private final SortedTreap<Task> tasksByTime;
+
+    /**
+     * Constructs an empty index.
+     */
+    TimeIndex() {
+        this(new SortedTreap<>(BY_TIME));
+    }
+
+    private TimeIndex(SortedTreap<Task> tasksByTime) {
+        this.tasksByTime = tasksByTime;
+    }
+
+    /**
+     * Returns an index of the given tasks, built in O(N log N) with a single sort.
+     *
+     * @param tasks The tasks to index.
+     * @return The new index.
+     */
+    static TimeIndex of(Iterable<Task> tasks) {
+        ArrayList<Task> scheduled = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.getScheduledTime() != null) {
+                scheduled.add(task);
+            }
+        }
+        scheduled.sort(BY_TIME);
+        return new TimeIndex(SortedTreap.of(BY_TIME, scheduled));
+    }
+
+    /**
+     * Returns an index that also holds the task, if it has a scheduled time.
+     * A task with the same time and id as one already indexed takes its place.
+     *
+     * @param task The task to index.
+     * @return The new index.
+     */
+    TimeIndex add(Task task) {
+        return task.getScheduledTime() == null ? this : new TimeIndex(tasksByTime.add(task));
+    }
+
+    /**
+     * Returns an index without the task.
+     *
+     * @param task The task to remove.
+     * @return The new index.
+     */
+    TimeIndex remove(Task task) {
+        return task.getScheduledTime() == null ? this : new TimeIndex(tasksByTime.remove(task));
+    }
+
+    /**
+     * Returns the tasks scheduled in the given range, earliest first.
+     *
+     * @param from The start of the range, or null for no lower bound.
+     * @param isFromInclusive Whether a task scheduled exactly at from is included.
+     * @param to The end of the range, or null for no upper bound.
+     * @param isToInclusive Whether a task scheduled exactly at to is included.
+     * @param limit The maximum number of tasks to return.
+     * @return The matching tasks, ordered by time.
+     */
+    ArrayList<Task> findBetween(LocalDateTime from, boolean isFromInclusive, LocalDateTime to, boolean isToInclusive,
+            int limit) {
+        Iterator<Task> range = tasksByTime.iterator(task -> from != null
+                && !isInRange(task.getScheduledTime(), from, isFromInclusive, null, false));
+        ArrayList<Task> found = new ArrayList<>();
+        while (range.hasNext() && found.size() < limit) {
+            Task task = range.next();
+            if (!isInRange(task.getScheduledTime(), null, false, to, isToInclusive)) {
+                break; // Every later task is past the end of the range as well.
+            }
+            found.add(task);
+        }
+        return found;
+    }
+
+    private static boolean isInRange(LocalDateTime time, LocalDateTime from, boolean isFromInclusive,
+            LocalDateTime to, boolean isToInclusive) {
+        boolean isAfterFrom = from == null || time.isAfter(from) || (isFromInclusive && time.isEqual(from));
+        boolean isBeforeTo = to == null || time.isBefore(to) || (isToInclusive && time.isEqual(to));
+        return isAfterFrom && isBeforeTo;
+    }
+}
@@ -15,6 +15,11 @@ public class Todo extends Task {
         super(description, priority);
     }
 
+    @Override
+    protected Task copy() {
+        return new Todo(description, priority);
+    }
+
     @Override
     public String toString() {
         return "[T]" + super.toString();
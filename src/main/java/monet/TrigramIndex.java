@@ -0,0 +1,422 @@
+package monet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * An inverted index from every three-character substring (trigram) of a task description to the
+ * tasks containing it.
+ *
+ * A keyword of three or more characters can only occur in a description that contains all of the
+ * keyword's trigrams, so a search only runs String.contains on the tasks of the smallest of those posting
+ * lists. The results are therefore exactly those of a contains() scan.
+ *
+ * The posting lists are built over one version of the list into flat arrays: an open-addressed table of
+ * trigrams pointing into one array of task positions. They are not changed afterwards, as keeping a persistent
+ * copy of every posting list up to date would copy O(log N) nodes per trigram on every change. Instead, each
+ * change is appended to a log, and the earlier copy of the task, in the postings or the log, is marked stale.
+ * A search skips stale copies and checks the tasks in the log directly, counting them. Once the count adds up
+ * to about the cost of folding the log into the postings, or the log reaches an eighth of the indexed tasks,
+ * isWorthRebuilding() says so and the list calls rebuild(). That reads only the descriptions in the log and
+ * copies the postings of the other tasks over, so a change costs O(log N) plus an O(1) share of the next
+ * rebuild, and the searches between two rebuilds spend about as long on the log as the rebuild takes.
+ *
+ * Every version of one build shares its arrays, and sees the first changeCount entries of the log. A change
+ * only appends to the log and marks copies stale as of its own place in it, which is past the end of every
+ * older version, so what an older version finds never changes. Only the newest version can be changed, one
+ * change at a time, as TaskList does under its lock.
+ */
+class TrigramIndex {
+    private static final int GRAM_LENGTH = 3;
+    /** About how many logged changes a search can check in the time a rebuild takes per indexed task. */
+    private static final int REBUILD_COST = 10;
+    /** The share of the indexed tasks, as 1 / n, that may change before a rebuild is due anyway. */
+    private static final int MAX_CHANGED_SHARE = 8;
+    private static final long NO_GRAM = -1; // Packed grams are never negative.
+    private static final int NEVER = Integer.MAX_VALUE;
+    private static final Comparator<Task> BY_ID = Comparator.comparingLong(Task::getId);
+
+    private final Postings postings;
+    private final int changeCount;
+    // The log of changes, holding the task each one added or replaced, or null for a removal. The log of an
+    // older version may be a shorter copy. A change is superseded by the next change to the same task.
+    private final Task[] changedTasks;
+    private final int[] supersededAt;
+
+    private TrigramIndex(Postings postings, int changeCount, Task[] changedTasks, int[] supersededAt) {
+        this.postings = postings;
+        this.changeCount = changeCount;
+        this.changedTasks = changedTasks;
+        this.supersededAt = supersededAt;
+    }
+
+    /**
+     * Returns an index of the given tasks, built in O(N) with two passes over their descriptions.
+     *
+     * @param tasks The tasks to index, in list order, so that their ids increase.
+     * @return The new index.
+     */
+    static TrigramIndex of(Iterable<Task> tasks) {
+        ArrayList<Task> taskList = new ArrayList<>();
+        tasks.forEach(taskList::add);
+        int[] everyPosition = IntStream.range(0, taskList.size()).toArray();
+        return fromPostings(new Postings(taskList.toArray(new Task[0]), null, null, everyPosition));
+    }
+
+    /**
+     * Returns an index of the same tasks with the logged changes folded into the postings. Only the descriptions
+     * of the changed tasks are read again. The postings of the others are carried over, without the stale ones,
+     * in one pass over them, which takes a fraction of a build from scratch.
+     *
+     * @return The new index.
+     */
+    TrigramIndex rebuild() {
+        List<Task> changed = new ArrayList<>();
+        for (int change = 0; change < changeCount; change++) {
+            if (changedTasks[change] != null && supersededAt[change] >= changeCount) {
+                changed.add(changedTasks[change]);
+            }
+        }
+        changed.sort(BY_ID);
+
+        // Merge the changed tasks with the live ones in the postings, both in list order.
+        ArrayList<Task> tasks = new ArrayList<>(postings.tasks.length + changed.size());
+        int[] carriedTo = new int[postings.tasks.length];
+        int[] changedAt = new int[changed.size()];
+        int nextChanged = 0;
+        for (int position = 0; position < postings.tasks.length; position++) {
+            if (postings.staleAt[position] < changeCount) {
+                carriedTo[position] = -1;
+                continue;
+            }
+            for (; nextChanged < changed.size() && changed.get(nextChanged).getId() < postings.ids[position];
+                    nextChanged++) {
+                changedAt[nextChanged] = tasks.size();
+                tasks.add(changed.get(nextChanged));
+            }
+            carriedTo[position] = tasks.size();
+            tasks.add(postings.tasks[position]);
+        }
+        for (; nextChanged < changed.size(); nextChanged++) {
+            changedAt[nextChanged] = tasks.size();
+            tasks.add(changed.get(nextChanged));
+        }
+        return fromPostings(new Postings(tasks.toArray(new Task[0]), postings, carriedTo, changedAt));
+    }
+
+    /**
+     * Returns an index that also holds the task. A task with the same id as one already indexed takes its place.
+     *
+     * @param task The task to index.
+     * @return The new index, or null if this is not the newest version of its build, in which case the index
+     *         must be built again from scratch.
+     */
+    TrigramIndex add(Task task) {
+        return change(task.getId(), task);
+    }
+
+    /**
+     * Returns an index without the task.
+     *
+     * @param task The task to remove.
+     * @return The new index, or null if this is not the newest version of its build, in which case the index
+     *         must be built again from scratch.
+     */
+    TrigramIndex remove(Task task) {
+        return change(task.getId(), null);
+    }
+
+    /**
+     * Returns whether a rebuild would pay off: either searches have spent about as long checking the logged
+     * changes as a rebuild would take, or there are so many changes that every search would spend a good part
+     * of that.
+     *
+     * @return True if the index should be rebuilt.
+     */
+    boolean isWorthRebuilding() {
+        int indexedCount = postings.tasks.length;
+        return postings.checked.get() > (long) REBUILD_COST * (indexedCount + changeCount)
+                || (long) MAX_CHANGED_SHARE * changeCount > indexedCount;
+    }
+
+    /**
+     * Returns whether the keyword is long enough to be looked up in the index.
+     *
+     * @param keyword The search keyword.
+     * @return True if find() can answer the query.
+     */
+    static boolean canSearch(String keyword) {
+        return keyword.length() >= GRAM_LENGTH;
+    }
+
+    /**
+     * Returns the indexed tasks whose description contains the keyword, ordered by id.
+     *
+     * @param keyword The search keyword, at least three characters long.
+     * @return The matching tasks, in list order.
+     */
+    List<Task> find(String keyword) {
+        assert canSearch(keyword) : "Keyword too short for the trigram index";
+        List<Task> changedMatches = new ArrayList<>();
+        if (changeCount > 0) {
+            postings.checked.addAndGet(changeCount);
+            for (int change = 0; change < changeCount; change++) {
+                Task task = changedTasks[change];
+                if (task != null && supersededAt[change] >= changeCount && task.getDescription().contains(keyword)) {
+                    changedMatches.add(task);
+                }
+            }
+            changedMatches.sort(BY_ID);
+        }
+        int rarest = -1;
+        for (long gram : distinctGrams(keyword)) {
+            int slot = findSlot(postings.slotGrams, gram);
+            if (postings.slotGrams[slot] == NO_GRAM) {
+                return changedMatches; // Some trigram of the keyword occurs in no indexed description.
+            }
+            if (rarest < 0 || postings.size(slot) < postings.size(rarest)) {
+                rarest = slot;
+            }
+        }
+        List<Task> matches = new ArrayList<>();
+        int nextChanged = 0;
+        for (int i = postings.offsets[rarest]; i < postings.offsets[rarest + 1]; i++) {
+            int position = postings.positions[i];
+            Task candidate = postings.tasks[position];
+            if (postings.staleAt[position] < changeCount || !candidate.getDescription().contains(keyword)) {
+                continue;
+            }
+            // Both lists are ordered by id, so the changed tasks are merged in as they come.
+            for (; nextChanged < changedMatches.size() && changedMatches.get(nextChanged).getId() < candidate.getId();
+                    nextChanged++) {
+                matches.add(changedMatches.get(nextChanged));
+            }
+            matches.add(candidate);
+        }
+        matches.addAll(changedMatches.subList(nextChanged, changedMatches.size()));
+        return matches;
+    }
+
+    /**
+     * Logs a change to the task with the given id, marking its earlier copy stale.
+     */
+    private TrigramIndex change(long id, Task task) {
+        if (changeCount != postings.changeCount) {
+            return null;
+        }
+        int change = changeCount;
+        int position = Arrays.binarySearch(postings.ids, id);
+        if (position >= 0 && postings.staleAt[position] == NEVER) {
+            postings.staleAt[position] = change;
+        }
+        Task[] newTasks = changedTasks;
+        int[] newSupersededAt = supersededAt;
+        if (change == newTasks.length) {
+            newTasks = Arrays.copyOf(newTasks, 2 * change);
+            newSupersededAt = Arrays.copyOf(newSupersededAt, 2 * change);
+        }
+        Integer previous = postings.lastChanges.put(id, change);
+        if (previous != null) {
+            newSupersededAt[previous] = change;
+        }
+        newTasks[change] = task;
+        newSupersededAt[change] = NEVER;
+        postings.changeCount = change + 1;
+        return new TrigramIndex(postings, change + 1, newTasks, newSupersededAt);
+    }
+
+    private static TrigramIndex fromPostings(Postings postings) {
+        return new TrigramIndex(postings, 0, new Task[16], new int[16]);
+    }
+
+    private static long[] newTable(int capacity) {
+        long[] slotGrams = new long[capacity];
+        Arrays.fill(slotGrams, NO_GRAM);
+        return slotGrams;
+    }
+
+    /**
+     * Returns the slot holding the gram, or the free slot where it would go.
+     */
+    private static int findSlot(long[] slotGrams, long gram) {
+        int mask = slotGrams.length - 1;
+        int slot = Long.hashCode(gram * 0x9E3779B97F4A7C15L) & mask;
+        while (slotGrams[slot] != NO_GRAM && slotGrams[slot] != gram) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long[] distinctGrams(String text) {
+        int count = Math.max(0, text.length() - GRAM_LENGTH + 1);
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            // Pack the three UTF-16 chars into one long so no String is allocated per gram.
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        // Sort and drop repeats in place, which allocates nothing more.
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return distinct == count ? grams : Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * The posting lists of one build, and what its versions share about the changes since.
+     *
+     * Stale marks are plain int writes that readers of other versions may see late or early. Either way they
+     * read a mark as no earlier than their own change count, so they answer the same.
+     */
+    private static class Postings {
+        private final Task[] tasks;
+        private final long[] ids;
+        // An open-addressed hash table of the trigrams, with linear probing. The positions in tasks of those
+        // containing the trigram in slot s are positions[offsets[s]] to positions[offsets[s + 1] - 1], in order.
+        private final long[] slotGrams;
+        private final int[] offsets;
+        private final int[] positions;
+        // The change after which each task in the postings is stale.
+        private final int[] staleAt;
+        // The place in the log of the last change to each changed task, by id, and the length of the log.
+        private final HashMap<Long, Integer> lastChanges = new HashMap<>();
+        private int changeCount;
+        // The number of logged changes that searches have checked.
+        private final AtomicLong checked = new AtomicLong();
+
+        /**
+         * Builds the postings of the tasks, carrying over those of an older build for the tasks it shares, and
+         * reading the descriptions of the rest.
+         *
+         * @param tasks The tasks, in list order.
+         * @param old The older build, or null.
+         * @param carriedTo The new position of each task of the older build, or -1 if it is gone or stale.
+         * @param changedAt The positions of the tasks whose descriptions are to be read, in order.
+         */
+        Postings(Task[] tasks, Postings old, int[] carriedTo, int[] changedAt) {
+            this.tasks = tasks;
+            this.ids = Arrays.stream(tasks).mapToLong(Task::getId).toArray();
+            this.staleAt = new int[tasks.length];
+            Arrays.fill(staleAt, NEVER);
+
+            // Count the postings each trigram keeps, and those the changed tasks add to it.
+            GramTable table = new GramTable();
+            int[] keptCounts = new int[old == null ? 0 : old.slotGrams.length];
+            for (int slot = 0; slot < keptCounts.length; slot++) {
+                for (int i = old.offsets[slot]; i < old.offsets[slot + 1]; i++) {
+                    if (carriedTo[old.positions[i]] >= 0) {
+                        keptCounts[slot]++;
+                    }
+                }
+                if (keptCounts[slot] > 0) {
+                    int newSlot = table.slotOf(old.slotGrams[slot]); // Before reading the counts it may move.
+                    table.keptCounts[newSlot] = keptCounts[slot];
+                }
+            }
+            for (int position : changedAt) {
+                for (long gram : distinctGrams(tasks[position].getDescription())) {
+                    int slot = table.slotOf(gram);
+                    table.addedCounts[slot]++;
+                }
+            }
+            this.slotGrams = table.grams;
+
+            // Lay the posting lists out one after another, and the added postings likewise, in list order.
+            int slotCount = slotGrams.length;
+            this.offsets = new int[slotCount + 1];
+            int[] addedOffsets = new int[slotCount + 1];
+            for (int slot = 0; slot < slotCount; slot++) {
+                offsets[slot + 1] = offsets[slot] + table.keptCounts[slot] + table.addedCounts[slot];
+                addedOffsets[slot + 1] = addedOffsets[slot] + table.addedCounts[slot];
+            }
+            int[] added = new int[addedOffsets[slotCount]];
+            int[] nextAdded = Arrays.copyOf(addedOffsets, slotCount);
+            for (int position : changedAt) {
+                for (long gram : distinctGrams(tasks[position].getDescription())) {
+                    added[nextAdded[table.slotOf(gram)]++] = position;
+                }
+            }
+
+            // Merge each trigram's kept postings, at their new positions, with its added ones.
+            this.positions = new int[offsets[slotCount]];
+            int[] oldSlots = new int[slotCount];
+            Arrays.fill(oldSlots, -1);
+            for (int slot = 0; slot < keptCounts.length; slot++) {
+                if (keptCounts[slot] > 0) {
+                    oldSlots[table.slotOf(old.slotGrams[slot])] = slot;
+                }
+            }
+            for (int slot = 0; slot < slotCount; slot++) {
+                int next = offsets[slot];
+                int nextNew = addedOffsets[slot];
+                if (oldSlots[slot] >= 0) {
+                    for (int i = old.offsets[oldSlots[slot]]; i < old.offsets[oldSlots[slot] + 1]; i++) {
+                        int position = carriedTo[old.positions[i]];
+                        if (position < 0) {
+                            continue;
+                        }
+                        for (; nextNew < addedOffsets[slot + 1] && added[nextNew] < position; nextNew++) {
+                            positions[next++] = added[nextNew];
+                        }
+                        positions[next++] = position;
+                    }
+                }
+                for (; nextNew < addedOffsets[slot + 1]; nextNew++) {
+                    positions[next++] = added[nextNew];
+                }
+            }
+        }
+
+        int size(int slot) {
+            return offsets[slot + 1] - offsets[slot];
+        }
+    }
+
+    /**
+     * An open-addressed hash table of trigrams, kept at most half full, with two counts per trigram.
+     */
+    private static class GramTable {
+        private long[] grams = newTable(1024);
+        private int[] keptCounts = new int[grams.length];
+        private int[] addedCounts = new int[grams.length];
+        private int size;
+
+        /**
+         * Returns the slot of the gram, adding it if it is new. Adding a gram may move the others.
+         */
+        int slotOf(long gram) {
+            int slot = findSlot(grams, gram);
+            if (grams[slot] != NO_GRAM) {
+                return slot;
+            }
+            if (2 * (size + 1) > grams.length) {
+                long[] oldGrams = grams;
+                int[] oldKeptCounts = keptCounts;
+                int[] oldAddedCounts = addedCounts;
+                grams = newTable(2 * oldGrams.length);
+                keptCounts = new int[grams.length];
+                addedCounts = new int[grams.length];
+                for (int i = 0; i < oldGrams.length; i++) {
+                    if (oldGrams[i] != NO_GRAM) {
+                        int newSlot = findSlot(grams, oldGrams[i]);
+                        grams[newSlot] = oldGrams[i];
+                        keptCounts[newSlot] = oldKeptCounts[i];
+                        addedCounts[newSlot] = oldAddedCounts[i];
+                    }
+                }
+                slot = findSlot(grams, gram);
+            }
+            grams[slot] = gram;
+            size++;
+            return slot;
+        }
+    }
+}
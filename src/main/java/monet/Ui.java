@@ -1,5 +1,7 @@
 package monet;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -158,6 +160,162 @@ public class Ui {
         return formatTaskList("Showing tasks with " + priority.name() + " priority:", tasks);
     }
 
+    /**
+     * Formats the tasks found by a "due" command into a display-ready string.
+     *
+     * @param from The start of the range, or null for a "due before" query.
+     * @param to The end of the range.
+     * @param tasks The matching tasks, earliest first.
+     * @return A formatted string containing the list of tasks, or a 'not found' message.
+     */
+    public String getDueTasksMessage(LocalDateTime from, LocalDateTime to, TaskList tasks) {
+        String range = from == null
+                ? "ere " + DateCodec.formatDisplay(to)
+                : "between " + DateCodec.formatDisplay(from) + " and " + DateCodec.formatDisplay(to);
+        if (tasks.getSize() == 0) {
+            return "Nay tasks art due " + range + ".";
+        }
+        return formatTaskList("H're art the tasks due " + range + ":", tasks);
+    }
+
+    /**
+     * Returns a formatted string reminding the user of a deadline or event that draws near.
+     * @param task The deadline or event.
+     * @return A formatted reminder string.
+     */
+    public String getReminderMessage(Task task) {
+        return formatMessages(
+                task instanceof Event ? "Hark! This event beginneth anon:" : "Hark! This deadline draweth nigh:",
+                "   " + task
+        );
+    }
+
+    /**
+     * Formats the next scheduled tasks into a display-ready string.
+     *
+     * @param tasks The upcoming tasks, earliest first.
+     * @return A formatted string containing the list of tasks, or a 'not found' message.
+     */
+    public String getUpcomingTasksMessage(TaskList tasks) {
+        if (tasks.getSize() == 0) {
+            return "Nay upcoming deadlines 'r events. Rejoice!";
+        }
+        return formatTaskList("H're art thy next " + tasks.getSize() + " upcoming tasks:", tasks);
+    }
+
+    /**
+     * Returns a formatted string for a newly added event that clashes with other events.
+     *
+     * @param task The event that was added.
+     * @param taskCount The new total number of tasks.
+     * @param clashes The events it overlaps with.
+     * @return A formatted confirmation string with the clashes listed.
+     */
+    public String getEventAddedWithClashesMessage(Task task, int taskCount, TaskList clashes) {
+        return getTaskAddedMessage(task, taskCount) + "\n"
+                + formatTaskList("Beware! This event clasheth with:", clashes);
+    }
+
+    /**
+     * Formats all pairs of overlapping events into a display-ready string.
+     *
+     * @param conflicts The overlapping pairs, earlier-starting event first.
+     * @return A formatted string listing each clash, or a 'not found' message.
+     */
+    public String getConflictsMessage(List<Event[]> conflicts) {
+        if (conflicts.isEmpty()) {
+            return "Nay events clash. Thy schedule is fair!";
+        }
+        StringBuilder sb = new StringBuilder("H're art the clashing events in thy listeth:");
+        for (int i = 0; i < conflicts.size(); i++) {
+            sb.append("\n  ").append(i + 1).append(".").append(conflicts.get(i)[0])
+                    .append("\n    clasheth with ").append(conflicts.get(i)[1]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats the free slots within a window into a display-ready string.
+     *
+     * @param slots The free slots as [start, end] pairs, in time order.
+     * @return A formatted string listing the free slots, or a 'none found' message.
+     */
+    public String getFreeSlotsMessage(List<LocalDateTime[]> slots) {
+        if (slots.isEmpty()) {
+            return "Nay free time in yond window. Thou art busy!";
+        }
+        StringBuilder sb = new StringBuilder("Thou art free during:");
+        for (int i = 0; i < slots.size(); i++) {
+            sb.append("\n  ").append(i + 1).append(".").append(DateCodec.formatDisplay(slots.get(i)[0]))
+                    .append(" to ").append(DateCodec.formatDisplay(slots.get(i)[1]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns a formatted string for changes that were undone or redone.
+     * @param isUndo Whether the changes were undone rather than redone.
+     * @param changes The changes as they were applied, most recent first.
+     * @param taskCount The new total number of tasks.
+     * @return A formatted confirmation string.
+     */
+    public String getChangesRevertedMessage(boolean isUndo, List<History.Change> changes, int taskCount) {
+        StringBuilder sb = new StringBuilder(isUndo ? "Verily, I've undone " : "Verily, I've redone ")
+                .append(changes.size()).append(changes.size() == 1 ? " change:" : " changes:");
+        for (History.Change change : changes) {
+            sb.append("\n  ");
+            if (change.after() == null) {
+                sb.append("Did remove ").append(change.before());
+            } else if (change.before() == null) {
+                sb.append("Did put back ").append(change.after());
+            } else {
+                sb.append(change.after().isDone() ? "Did mark " : "Did unmark ").append(change.after());
+            }
+        }
+        return sb.append("\nAnon thee has't ").append(taskCount).append(" tasks in thy listeth.").toString();
+    }
+
+    /**
+     * Formats the latency of each command type that has been run, and what the data file has cost so far.
+     * Each command shows its median, 99th percentile and slowest latency, followed by the median time it
+     * spent in each phase it went through.
+     *
+     * @param metrics The metrics to report.
+     * @return A formatted string of the figures.
+     */
+    public String getStatsMessage(Metrics metrics) {
+        StringBuilder sb = new StringBuilder();
+        for (Command command : Command.values()) {
+            LatencyHistogram latency = metrics.getLatency(command);
+            if (latency.getCount() == 0) {
+                continue;
+            }
+            sb.append("\n  ").append(command.name().toLowerCase()).append(": ").append(latency.getCount())
+                    .append(latency.getCount() == 1 ? " time, " : " times, ")
+                    .append(formatMillis(latency.getPercentileNanos(50))).append(" / ")
+                    .append(formatMillis(latency.getPercentileNanos(99))).append(" / ")
+                    .append(formatMillis(latency.getMaxNanos())).append(" ms\n   ");
+            for (Metrics.Phase phase : Metrics.Phase.values()) {
+                LatencyHistogram phaseLatency = metrics.getLatency(command, phase);
+                if (phaseLatency.getCount() > 0) {
+                    sb.append(" ").append(phase.name().toLowerCase()).append(" ")
+                            .append(formatMillis(phaseLatency.getPercentileNanos(50)));
+                }
+            }
+        }
+        String header = sb.length() == 0
+                ? "Nay commands hath been timed yet."
+                : "H're is wh're thy time hath gone (median / 99th percentile / slowest):";
+        LatencyHistogram saves = metrics.getSaves();
+        return header + sb + "\nSaves: " + saves.getCount() + ", " + formatMillis(saves.getMeanNanos())
+                + " ms on average. Journal writes: " + metrics.getJournalWrites().getCount()
+                + ". Bytes written: " + metrics.getBytesWritten() + ".";
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+
     // Helper method to format the list of tasks
     private String formatTaskList(String header, TaskList tasks) {
         StringBuilder sb = new StringBuilder(header);
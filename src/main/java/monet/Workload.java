@@ -0,0 +1,298 @@
+package monet;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a task list and a stream of commands that resemble how Monet is used, for performance testing.
+ *
+ * Everything is drawn from a seeded Random, so the same settings always give the same tasks and commands.
+ * Tasks are todos, deadlines and events in the given mix, with descriptions from a small vocabulary, times
+ * spread over a year, mixed priorities and about a third of them done. Commands are mostly additions and
+ * searches, with marking, deletions, the odd undo and now and then a full listing; see CommandKind.
+ * The generator keeps track of the length of the list, so every task number it uses exists.
+ */
+class Workload {
+    /** The share of todos, deadlines and events used when no other mix is given. */
+    static final int[] DEFAULT_MIX = {50, 30, 20};
+
+    private static final String[] WORDS = {
+        "read", "book", "return", "report", "project", "meeting", "team", "lunch", "call", "mum", "buy",
+        "groceries", "finish", "essay", "review", "pull", "request", "gym", "pay", "rent", "plan", "trip",
+        "submit", "assignment", "lecture", "tutorial", "quiz", "email", "prof", "clean", "room", "water", "plants"
+    };
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int MINUTES_IN_YEAR = 365 * 24 * 60;
+    private static final CommandKind[] COMMAND_KINDS = CommandKind.values();
+    private static final int[] COMMAND_WEIGHTS = new int[COMMAND_KINDS.length];
+
+    static {
+        for (CommandKind kind : COMMAND_KINDS) {
+            COMMAND_WEIGHTS[kind.ordinal()] = kind.weight;
+        }
+    }
+
+    private final long seed;
+    private final int[] mix;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param seed The seed that the tasks and commands are drawn from.
+     * @param mix The relative shares of todos, deadlines and events, e.g. {50, 30, 20}.
+     */
+    Workload(long seed, int[] mix) {
+        assert mix.length == 3 && mix[0] + mix[1] + mix[2] > 0 : "Mix needs a share for each type of task";
+        this.seed = seed;
+        this.mix = mix.clone();
+    }
+
+    /**
+     * Parses a mix written as three comma-separated shares, e.g. "50,30,20".
+     *
+     * @param text The mix.
+     * @return The shares of todos, deadlines and events.
+     * @throws NumberFormatException If the text is not three shares that are not negative and not all 0.
+     */
+    static int[] parseMix(String text) {
+        String[] parts = text.split(",");
+        if (parts.length != 3) {
+            throw new NumberFormatException("The mix must beest three shares, f'r todos, deadlines and events.");
+        }
+        int[] mix = new int[3];
+        for (int i = 0; i < 3; i++) {
+            mix[i] = Integer.parseInt(parts[i].trim());
+            if (mix[i] < 0) {
+                throw new NumberFormatException("A share of the mix cannot beest negative.");
+            }
+        }
+        if (mix[0] + mix[1] + mix[2] == 0) {
+            throw new NumberFormatException("The mix needs at least one type of task.");
+        }
+        return mix;
+    }
+
+    /**
+     * Returns a generated task list.
+     *
+     * @param size The number of tasks.
+     * @return The same tasks, in the same order, for every call with the same seed, mix and size.
+     */
+    ArrayList<Task> tasks(int size) {
+        Random random = new Random(seed);
+        ArrayList<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String description = description(random) + " " + (i % 1000);
+            Priority priority = Priority.values()[random.nextInt(Priority.values().length)];
+            LocalDateTime time = randomTime(random);
+            Task task;
+            switch (pickTaskType(random)) {
+            case 0:
+                task = new Todo(description, priority);
+                break;
+            case 1:
+                task = new Deadline(description, time, priority);
+                break;
+            default:
+                task = new Event(description, time, time.plusMinutes(30 + random.nextInt(180)), priority);
+                break;
+            }
+            if (random.nextInt(3) == 0) {
+                task.markAsDone();
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns a generated stream of commands, as a user would type them.
+     *
+     * @param taskCount The number of tasks in the list that the commands are run against.
+     * @param count The number of commands.
+     * @return The same commands for every call with the same seed, mix and arguments.
+     */
+    List<String> commands(int taskCount, int count) {
+        // A different stream from the tasks', so that a command does not repeat the task at the same position.
+        Random random = new Random(~seed);
+        List<String> commands = new ArrayList<>(count);
+        int size = taskCount;
+        // The change in length made by each change that can still be undone, most recent first.
+        ArrayDeque<Integer> changes = new ArrayDeque<>();
+        while (commands.size() < count) {
+            String command;
+            int change = 0;
+            boolean isChange = false;
+            switch (COMMAND_KINDS[pick(random, COMMAND_WEIGHTS)]) {
+            case ADD:
+                command = addCommand(random);
+                change = 1;
+                isChange = true;
+                break;
+            case FIND:
+                command = "find " + WORDS[random.nextInt(WORDS.length)];
+                break;
+            case PRIORITY:
+                command = "priority " + (1 + random.nextInt(3));
+                break;
+            case DUE: {
+                LocalDateTime from = randomTime(random);
+                command = "due between " + format(from) + " " + format(from.plusDays(1));
+                break;
+            }
+            case UPCOMING:
+                command = "upcoming " + (1 + random.nextInt(10));
+                break;
+            case MARK:
+                if (size == 0) {
+                    continue;
+                }
+                command = (random.nextBoolean() ? "mark " : "unmark ") + (1 + random.nextInt(size));
+                isChange = true;
+                break;
+            case DELETE:
+                if (size == 0) {
+                    continue;
+                }
+                command = "delete " + (1 + random.nextInt(size));
+                change = -1;
+                isChange = true;
+                break;
+            case UNDO:
+                if (changes.isEmpty()) {
+                    continue;
+                }
+                command = "undo";
+                size -= changes.pop();
+                break;
+            case FREE: {
+                LocalDateTime from = randomTime(random).withHour(9).withMinute(0);
+                command = "free " + format(from) + " /to " + format(from.withHour(17));
+                break;
+            }
+            default:
+                command = "list";
+                break;
+            }
+            if (isChange) {
+                size += change;
+                changes.push(change);
+                if (changes.size() > History.DEFAULT_LIMIT) {
+                    changes.removeLast();
+                }
+            }
+            commands.add(command);
+        }
+        return commands;
+    }
+
+    /**
+     * Writes a generated task list as a data file in the text format.
+     *
+     * @param file The file to write.
+     * @param size The number of tasks.
+     * @throws IOException If the file cannot be written.
+     */
+    void writeDataFile(File file, int size) throws IOException {
+        new Storage(file.getPath()).exportText(tasks(size), file.getPath());
+    }
+
+    /**
+     * Writes a generated stream of commands, one per line, as --batch reads them.
+     *
+     * @param file The file to write.
+     * @param taskCount The number of tasks in the list that the commands are run against.
+     * @param count The number of commands.
+     * @throws IOException If the file cannot be written.
+     */
+    void writeCommands(File file, int taskCount, int count) throws IOException {
+        File absoluteFile = file.getAbsoluteFile();
+        absoluteFile.getParentFile().mkdirs();
+        try (Writer writer = new BufferedWriter(new FileWriter(absoluteFile, StandardCharsets.UTF_8))) {
+            for (String command : commands(taskCount, count)) {
+                writer.write(command);
+                writer.write(System.lineSeparator());
+            }
+        }
+    }
+
+    private String addCommand(Random random) {
+        String description = description(random);
+        String priority = " /p " + (1 + random.nextInt(3));
+        LocalDateTime time = randomTime(random);
+        switch (pickTaskType(random)) {
+        case 0:
+            return "todo " + description + priority;
+        case 1:
+            return "deadline " + description + " /by " + format(time) + priority;
+        default:
+            return "event " + description + " /from " + format(time) + " /to "
+                    + format(time.plusMinutes(30 + random.nextInt(180))) + priority;
+        }
+    }
+
+    private int pickTaskType(Random random) {
+        return pick(random, mix);
+    }
+
+    private static String description(Random random) {
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static LocalDateTime randomTime(Random random) {
+        return START.plusMinutes(random.nextInt(MINUTES_IN_YEAR));
+    }
+
+    private static String format(LocalDateTime time) {
+        return time.format(DateCodec.INPUT_FORMATTER);
+    }
+
+    /**
+     * Returns an index into weights, each index being picked in proportion to its weight.
+     */
+    private static int pick(Random random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int roll = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        throw new AssertionError("Roll is below the total weight");
+    }
+
+    /**
+     * The kinds of command in a stream, and how often each comes up, out of 100.
+     */
+    private enum CommandKind {
+        ADD(30),
+        FIND(22),
+        PRIORITY(5),
+        DUE(8),
+        UPCOMING(8),
+        MARK(12),
+        DELETE(8),
+        UNDO(3),
+        FREE(2),
+        LIST(1);
+
+        private final int weight;
+
+        CommandKind(int weight) {
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package monet.gui;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * The messages shown in the chat window, capped at a number of the most recent ones.
+ *
+ * Once the history grows an eighth past its limit, the oldest messages are dropped in one go, so that adding
+ * a message costs O(1) amortized however long the session runs. Dropped messages can be appended to a spill
+ * file first, one line per message, so that a long session is never lost entirely. The file is written on a
+ * background thread, so the window never waits for the disk; close() waits for the writes still pending.
+ * The history must only be used on the JavaFX Application Thread, like the list view that shows it.
+ */
+public class ChatHistory {
+    /** System property that sets the number of messages kept in the window. */
+    public static final String LIMIT_PROPERTY = "monet.gui.historyLimit";
+    /** System property naming a file that dropped messages are appended to. */
+    public static final String SPILL_FILE_PROPERTY = "monet.gui.spillFile";
+    /** The number of messages kept when no other is given. */
+    public static final int DEFAULT_LIMIT = 10_000;
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final ObservableList<ChatMessage> messages = FXCollections.observableArrayList();
+    private final int limit;
+    private final String spillPath;
+    // Appends to the spill file in the order the messages were dropped; null if there is no spill file.
+    private final ExecutorService spillWriter;
+
+    /**
+     * Constructs a history with the limit and spill file set by the system properties.
+     */
+    public ChatHistory() {
+        this(Integer.getInteger(LIMIT_PROPERTY, DEFAULT_LIMIT), System.getProperty(SPILL_FILE_PROPERTY));
+    }
+
+    /**
+     * Constructs a history.
+     *
+     * @param limit The number of most recent messages to keep.
+     * @param spillPath The file to append dropped messages to, or null to discard them.
+     */
+    public ChatHistory(int limit, String spillPath) {
+        assert limit > 0 : "History must keep at least one message";
+        this.limit = limit;
+        this.spillPath = spillPath;
+        this.spillWriter = spillPath == null ? null : Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "monet-chat-spill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the messages, oldest first, for a list view to show.
+     *
+     * @return The live list of messages.
+     */
+    public ObservableList<ChatMessage> getMessages() {
+        return messages;
+    }
+
+    /**
+     * Adds a message at the end, dropping the oldest messages if the history has grown too long.
+     *
+     * @param message The message to add.
+     */
+    public void add(ChatMessage message) {
+        messages.add(message);
+        if (messages.size() > limit + limit / 8) {
+            List<ChatMessage> dropped = messages.subList(0, messages.size() - limit);
+            spill(dropped);
+            dropped.clear();
+        }
+    }
+
+    /**
+     * Waits for the dropped messages still being written to the spill file, then stops the writer.
+     * Should be called once when the window closes.
+     */
+    public void close() {
+        if (spillWriter == null) {
+            return;
+        }
+        spillWriter.shutdown();
+        try {
+            spillWriter.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hands the dropped messages to the spill writer. Their lines are made here, as the text of a message
+     * may only be read on the JavaFX Application Thread.
+     */
+    private void spill(List<ChatMessage> dropped) {
+        if (spillWriter == null) {
+            return;
+        }
+        ArrayList<String> lines = new ArrayList<>(dropped.size());
+        for (ChatMessage message : dropped) {
+            // Keep one message to a line, so the file can be read back line by line.
+            lines.add((message.isFromUser() ? "You: " : "Monet: ") + message.getText().replace("\n", "\\n"));
+        }
+        spillWriter.execute(() -> write(lines));
+    }
+
+    private void write(List<String> lines) {
+        try (Writer writer = new BufferedWriter(new FileWriter(spillPath, StandardCharsets.UTF_8, true))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            System.out.println("Alas! Couldst not saveth old messages: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package monet.gui;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+/**
+ * One message in the chat window, from the user or from Monet.
+ * The text of Monet's reply to a command changes once, when the response arrives.
+ */
+public class ChatMessage {
+    private final boolean isFromUser;
+    private final StringProperty text;
+
+    /**
+     * Constructs a message.
+     *
+     * @param isFromUser Whether the user sent the message, rather than Monet.
+     * @param text The text of the message.
+     */
+    public ChatMessage(boolean isFromUser, String text) {
+        this.isFromUser = isFromUser;
+        this.text = new SimpleStringProperty(text);
+    }
+
+    public boolean isFromUser() {
+        return isFromUser;
+    }
+
+    public String getText() {
+        return text.get();
+    }
+
+    public void setText(String text) {
+        this.text.set(text);
+    }
+
+    public StringProperty textProperty() {
+        return text;
+    }
+}
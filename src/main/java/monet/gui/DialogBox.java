@@ -1,59 +1,131 @@
 package monet.gui;
 
-import java.io.IOException;
-import java.util.Collections;
+import java.util.ArrayDeque;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.beans.property.StringProperty;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
-import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+import javafx.scene.text.Font;
 
 /**
  * Represents a dialog box consisting of an ImageView and a Label.
+ *
+ * The box is built in code rather than loaded from FXML, which would parse the layout and reflect over this class
+ * for every message. Boxes that are no longer shown can be handed back with recycle(), and the factory methods
+ * reuse them before building new ones. Like any node, a DialogBox must only be used on the JavaFX Application
+ * Thread, and so must the pool.
  */
 public class DialogBox extends HBox {
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
-
-    private DialogBox(String text, Image img) {
-        try {
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    private static final Font FONT = Font.font("French Script MT", 24);
+    private static final Insets PADDING = new Insets(15, 5, 15, 5);
+    private static final int PREF_WIDTH = 400;
+    private static final int PICTURE_WIDTH = 150;
+    private static final int PICTURE_HEIGHT = 200;
+    /** The most boxes kept for reuse; more than a window's worth is never needed. */
+    private static final int POOL_LIMIT = 64;
+    private static final ArrayDeque<DialogBox> POOL = new ArrayDeque<>();
+
+    private final Label dialog = new Label();
+    private final ImageView displayPicture = new ImageView();
+
+    private boolean isFlipped;
+
+    private DialogBox() {
+        dialog.getStyleClass().add("dialog-label");
+        dialog.setMinHeight(Region.USE_PREF_SIZE);
+        dialog.setWrapText(true);
+        dialog.setFont(FONT);
+        displayPicture.setFitWidth(PICTURE_WIDTH);
+        displayPicture.setFitHeight(PICTURE_HEIGHT);
+        displayPicture.setPickOnBounds(true);
+        displayPicture.setPreserveRatio(true);
 
+        getStyleClass().add("dialog-box");
+        setAlignment(Pos.TOP_RIGHT);
+        setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        setPrefWidth(PREF_WIDTH);
+        setPadding(PADDING);
+        getChildren().setAll(dialog, displayPicture);
+    }
+
+    /**
+     * Replaces the text of the dialog box, e.g. once a pending response has arrived.
+     *
+     * @param text The new text.
+     */
+    public void setText(String text) {
         dialog.setText(text);
+    }
+
+    /**
+     * Returns the text of the dialog box as a property, so that it can follow the text of a message.
+     *
+     * @return The text property of the label.
+     */
+    public StringProperty textProperty() {
+        return dialog.textProperty();
+    }
+
+    /**
+     * Reuses the dialog box for another message, e.g. in a list cell.
+     *
+     * @param img The picture to show.
+     * @param isFromMonet Whether the box should be aligned to the left, as for the chatbot's messages.
+     */
+    public void show(Image img, boolean isFromMonet) {
         displayPicture.setImage(img);
+        if (isFlipped != isFromMonet) {
+            flip();
+        }
     }
 
     /**
-     * Flips the dialog box to align to the left for the chatbot's messages.
+     * Flips the dialog box to the other side: to the left for the chatbot's messages, or back to the right.
      */
     private void flip() {
-        ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
-        Collections.reverse(tmp);
-        getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
+        isFlipped = !isFlipped;
+        if (isFlipped) {
+            getChildren().setAll(displayPicture, dialog);
+            setAlignment(Pos.TOP_LEFT);
+        } else {
+            getChildren().setAll(dialog, displayPicture);
+            setAlignment(Pos.TOP_RIGHT);
+        }
     }
 
     public static DialogBox getUserDialog(String text, Image img) {
-        return new DialogBox(text, img);
+        return obtain(text, img, false);
     }
 
     public static DialogBox getMonetDialog(String text, Image img) {
-        var db = new DialogBox(text, img);
-        db.flip();
-        return db;
+        return obtain(text, img, true);
+    }
+
+    /**
+     * Hands back a dialog box that is no longer shown, so that a later getUserDialog() or getMonetDialog()
+     * can reuse it. The box must not be used by the caller afterwards.
+     *
+     * @param box The box to reuse.
+     */
+    public static void recycle(DialogBox box) {
+        assert box.getParent() == null : "Dialog box is still shown";
+        box.textProperty().unbind();
+        box.setText("");
+        box.displayPicture.setImage(null);
+        if (POOL.size() < POOL_LIMIT) {
+            POOL.push(box);
+        }
+    }
+
+    private static DialogBox obtain(String text, Image img, boolean isFromMonet) {
+        DialogBox box = POOL.isEmpty() ? new DialogBox() : POOL.pop();
+        box.setText(text);
+        box.show(img, isFromMonet);
+        return box;
     }
 }
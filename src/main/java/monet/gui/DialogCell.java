@@ -0,0 +1,52 @@
+package monet.gui;
+
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ListCell;
+import javafx.scene.image.Image;
+
+/**
+ * A cell of the chat list view. The list view makes only enough cells to fill the window and reuses them as
+ * it scrolls, so a cell keeps one DialogBox and shows whichever message it is given in it. A cell with no
+ * message, such as those below the end of a short chat, hands its box back to the pool.
+ */
+class DialogCell extends ListCell<ChatMessage> {
+    private final Image userImage;
+    private final Image monetImage;
+    private DialogBox dialogBox;
+
+    /**
+     * Constructs a cell.
+     *
+     * @param userImage The picture shown next to the user's messages.
+     * @param monetImage The picture shown next to Monet's messages.
+     */
+    DialogCell(Image userImage, Image monetImage) {
+        this.userImage = userImage;
+        this.monetImage = monetImage;
+        setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+        // Let the cell take the width of the list rather than that of its text, so long messages wrap.
+        setPrefWidth(0);
+    }
+
+    @Override
+    protected void updateItem(ChatMessage message, boolean isEmpty) {
+        super.updateItem(message, isEmpty);
+        if (isEmpty || message == null) {
+            if (dialogBox != null) {
+                setGraphic(null);
+                DialogBox.recycle(dialogBox);
+                dialogBox = null;
+            }
+            return;
+        }
+        Image image = message.isFromUser() ? userImage : monetImage;
+        if (dialogBox == null) {
+            dialogBox = DialogBox.getUserDialog("", image);
+        }
+        dialogBox.textProperty().unbind();
+        dialogBox.show(image, !message.isFromUser());
+        // A pending reply fills in while it is shown.
+        dialogBox.textProperty().bind(message.textProperty());
+        setGraphic(dialogBox);
+    }
+}
@@ -1,66 +1,116 @@
 package monet.gui;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
 import monet.Monet;
 
 /**
  * Controller for MainWindow. Provides the layout for the main window and handles user interaction.
+ *
+ * Commands run on a background thread, so the window stays responsive while a long one runs. Until its
+ * response arrives, each command is answered by a placeholder message. The commands run one at a time, in the
+ * order they were sent, so their responses fill in the placeholders in order as well.
+ *
+ * The messages are shown in a list view, which only lays out the few that are on screen, so a long session
+ * scrolls as smoothly as a short one. The number of messages kept is capped, see ChatHistory.
  */
 public class MainWindow extends AnchorPane {
+    /** The text shown in place of a response that is still being worked on. */
+    private static final String PENDING_TEXT = "Prithee waiteth, I am pondering...";
+    /** How long closing the window waits for the commands still queued. */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<ChatMessage> dialogList;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
 
     private Monet monet;
+    private final ChatHistory history = new ChatHistory();
 
     private Image userImage = new Image(this.getClass().getResourceAsStream("/images/user.png"));
     private Image monetImage = new Image(this.getClass().getResourceAsStream("/images/monet.png"));
 
+    // A single thread runs the commands in the order they were sent.
+    private final ExecutorService commandExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "monet-commands");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * Initializes the controller.
-     * Binds the scroll pane to the dialog container's height.
+     * Shows the chat history in the list view, one DialogBox per visible message.
      */
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        dialogList.setItems(history.getMessages());
+        dialogList.setCellFactory(list -> new DialogCell(userImage, monetImage));
         // The welcome message will be shown after the monet instance is set.
     }
 
     /**
      * Sets the Monet instance for this controller.
-     * Shows welcome message.
+     * Shows welcome message, and from then on a reminder whenever a deadline or event draws near.
      * @param m The Monet instance.
      */
     public void setMonet(Monet m) {
         monet = m;
-        dialogContainer.getChildren().add(
-                DialogBox.getMonetDialog(monet.getWelcomeMessage(), monetImage)
-        );
+        addMessage(new ChatMessage(false, monet.getWelcomeMessage()));
+        monet.startReminders(text -> Platform.runLater(() -> addMessage(new ChatMessage(false, text))));
+    }
+
+    /**
+     * Waits for the commands still queued to finish, so that their changes are not lost on exit, and for the
+     * old messages still being saved to the spill file.
+     * Should be called once when the window closes, before Monet is shut down.
+     */
+    public void shutdown() {
+        commandExecutor.shutdown();
+        try {
+            commandExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        history.close();
     }
 
     /**
-     * Creates two dialog boxes, one for user input and one for Monet's reply.
-     * Appends them to the dialog container and clears the user input field.
+     * Shows the user's input with a placeholder for Monet's reply, and clears the user input field.
+     * The command then runs in the background, and its response replaces the placeholder once it is ready.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        String response = monet.getResponse(input); // The core interaction
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getMonetDialog(response, monetImage)
-        );
+        ChatMessage reply = new ChatMessage(false, PENDING_TEXT);
+        addMessage(new ChatMessage(true, input));
+        addMessage(reply);
         userInput.clear();
+        commandExecutor.execute(() -> {
+            String response;
+            try {
+                response = monet.getResponse(input); // The core interaction
+            } catch (RuntimeException e) {
+                response = "Alas! Something hath gone wrong: " + e;
+            }
+            String text = response;
+            Platform.runLater(() -> reply.setText(text));
+        });
+    }
+
+    private void addMessage(ChatMessage message) {
+        history.add(message);
+        dialogList.scrollTo(history.getMessages().size() - 1);
     }
 }
@@ -0,0 +1,101 @@
+package monet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BinaryFormatTest {
+    @TempDir
+    File directory;
+
+    @Test
+    public void read_writtenTasks_roundTrips() throws IOException {
+        // Longer than the reader's buffer, and not ASCII, so that the buffer grows mid-character.
+        String longDescription = "\u00e9t\u00e9 ".repeat(300_000);
+        Deadline done = new Deadline("pay tax", LocalDateTime.of(2025, 4, 30, 23, 59), Priority.HIGH);
+        done.markAsDone();
+        List<Task> tasks = List.of(
+                new Todo("read book", Priority.LOW),
+                done,
+                new Deadline("before the epoch", LocalDateTime.of(1969, 12, 31, 23, 59, 59), Priority.MEDIUM),
+                new Deadline("long ago", LocalDateTime.of(-4000, 1, 1, 0, 0), Priority.LOW),
+                new Event("with nanos", LocalDateTime.of(2025, 10, 1, 18, 0, 0, 1),
+                        LocalDateTime.of(2025, 10, 1, 19, 30, 15, 999_999_999), Priority.HIGH),
+                new Event("", LocalDateTime.of(1900, 1, 1, 0, 0), LocalDateTime.of(2100, 1, 1, 0, 0), Priority.LOW),
+                new Todo(longDescription, Priority.MEDIUM),
+                new Todo("after the long one", Priority.HIGH));
+        File file = new File(directory, "monet.bin");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            BinaryFormat.writeHeader(out);
+            for (Task task : tasks) {
+                BinaryFormat.write(out, task);
+            }
+        }
+
+        CRC32 checksum = new CRC32();
+        ArrayList<Task> read;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            read = BinaryFormat.read(channel, checksum);
+        }
+        assertEquals(tasks.size(), read.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toFileString(), read.get(i).toFileString());
+            assertEquals(tasks.get(i).getClass(), read.get(i).getClass());
+        }
+        CRC32 expected = new CRC32();
+        expected.update(Files.readAllBytes(file.toPath()));
+        assertEquals(expected.getValue(), checksum.getValue());
+    }
+
+    @Test
+    public void read_negativeDescriptionLength_throwsIoException() throws IOException {
+        // A ten byte varint that sets the sign bit.
+        File file = writeRecord('T', 0, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x01);
+        assertThrows(IOException.class, () -> read(file));
+    }
+
+    @Test
+    public void read_descriptionLongerThanFile_throwsIoException() throws IOException {
+        File file = writeRecord('T', 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x07); // Integer.MAX_VALUE bytes.
+        assertThrows(IOException.class, () -> read(file));
+    }
+
+    @Test
+    public void read_nanosOutOfRange_throwsIoException() throws IOException {
+        // A deadline with nanos, an empty description, epoch second 0 and 2^32 nanoseconds.
+        File file = writeRecord('D', 1 << 3, 0, 0, 0x80, 0x80, 0x80, 0x80, 0x10);
+        assertThrows(IOException.class, () -> read(file));
+    }
+
+    private File writeRecord(int... bytes) throws IOException {
+        File file = new File(directory, "corrupted.bin");
+        try (OutputStream out = new FileOutputStream(file)) {
+            BinaryFormat.writeHeader(out);
+            for (int b : bytes) {
+                out.write(b);
+            }
+        }
+        return file;
+    }
+
+    private static void read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            BinaryFormat.read(channel, new CRC32());
+        }
+    }
+}
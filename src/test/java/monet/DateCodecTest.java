@@ -0,0 +1,181 @@
+package monet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks every DateCodec method against the java.time call it stands in for, on valid date/times and on
+ * random mutations of them. DateCodec takes its month names and AM/PM markers from the default locale when
+ * it is loaded, so it is loaded afresh under each locale tried.
+ */
+public class DateCodecTest {
+    private static final Locale[] LOCALES = {Locale.US, Locale.GERMANY, Locale.FRANCE, Locale.JAPAN};
+    private static final String MUTATION_CHARS = "0123456789-:T +aZ\u0661\u00e9";
+    /** Random date/times per locale; each adds a formatted and a mutated string to the corpus. */
+    private static final int RANDOM_VALUES = 1500;
+    private static final String[] EDGE_CASES = {
+        "", "2024-02-29 1200", "2025-02-29 1200", "2025-04-31", "2025-12-31 2400", "0000-01-01 0000",
+        "9999-12-31 2359", "10000-01-01 0000", "+2025-01-01 0000", "2025-1-01 0900", "2025-01-01  0900",
+        "2400", "0960", "-100", "2025-10-01T24:00", "2025-10-01T18:00:60", "2025-10-01T18:00:5",
+        "2025-10-01T18:00:00.5", "0000-01-01T00:00", "2025-10-01T1800", "2025-10-01 18:00",
+    };
+
+    @Test
+    public void allMethods_randomCorpus_matchJavaTime() throws Exception {
+        for (Locale locale : LOCALES) {
+            checkLocale(locale, new Random(locale.toLanguageTag().hashCode()));
+        }
+    }
+
+    private static void checkLocale(Locale locale, Random random) throws Exception {
+        Class<?> codec = loadCodec(locale);
+        Method parseInput = method(codec, "parseInput", String.class);
+        Method parseDate = method(codec, "parseDate", String.class);
+        Method parseTime = method(codec, "parseTime", String.class);
+        Method parseIso = method(codec, "parseIso", String.class);
+        Method parseIsoBytes = method(codec, "parseIso", byte[].class, int.class, int.class);
+        Method formatIso = method(codec, "formatIso", LocalDateTime.class);
+        Method formatDisplay = method(codec, "formatDisplay", LocalDateTime.class);
+        DateTimeFormatter inputFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm", locale);
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd", locale);
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HHmm", locale);
+        DateTimeFormatter displayFormatter = DateTimeFormatter.ofPattern("MMM dd yyyy, h:mm a", locale);
+
+        ArrayList<String> corpus = new ArrayList<>(List.of(EDGE_CASES));
+        for (int i = 0; i < RANDOM_VALUES; i++) {
+            LocalDateTime dateTime = randomDateTime(random);
+            String text = switch (random.nextInt(4)) {
+            case 0 -> dateTime.format(inputFormatter);
+            case 1 -> dateTime.format(dateFormatter);
+            case 2 -> dateTime.format(timeFormatter);
+            default -> dateTime.toString();
+            };
+            corpus.add(text);
+            corpus.add(mutate(text, random));
+
+            assertEquals(dateTime.toString(), formatIso.invoke(null, dateTime), locale + " " + dateTime);
+            assertEquals(outcome(() -> dateTime.format(displayFormatter)),
+                    outcome(() -> formatDisplay.invoke(null, dateTime)), locale + " " + dateTime);
+        }
+
+        for (String text : corpus) {
+            String message = locale + " \"" + text + "\"";
+            assertEquals(outcome(() -> LocalDateTime.parse(text, inputFormatter)),
+                    outcome(() -> parseInput.invoke(null, text)), message);
+            assertEquals(outcome(() -> LocalDate.parse(text, dateFormatter)),
+                    outcome(() -> parseDate.invoke(null, text)), message);
+            assertEquals(outcome(() -> LocalTime.parse(text, timeFormatter)),
+                    outcome(() -> parseTime.invoke(null, text)), message);
+            Object expectedIso = outcome(() -> LocalDateTime.parse(text));
+            assertEquals(expectedIso, outcome(() -> parseIso.invoke(null, text)), message);
+
+            // The byte overload may leave any text to the caller, but what it does parse must be right.
+            byte[] text8 = text.getBytes(StandardCharsets.UTF_8);
+            byte[] line = new byte[text8.length + 4];
+            line[0] = 'D';
+            line[1] = '|';
+            System.arraycopy(text8, 0, line, 2, text8.length);
+            line[line.length - 2] = '|';
+            line[line.length - 1] = 'x';
+            Object parsed = outcome(() -> parseIsoBytes.invoke(null, line, 2, 2 + text8.length));
+            if (parsed != null) {
+                assertEquals(expectedIso, parsed, message);
+            } else if (text.length() == 16 && !text.startsWith("0000") && expectedIso instanceof LocalDateTime) {
+                fail(message + " should take the fast path");
+            }
+        }
+    }
+
+    /**
+     * Loads a copy of DateCodec, initialized under the given default locale.
+     */
+    private static Class<?> loadCodec(Locale locale) throws Exception {
+        Locale saved = Locale.getDefault();
+        Locale.setDefault(locale);
+        try {
+            URL classes = DateCodec.class.getProtectionDomain().getCodeSource().getLocation();
+            ClassLoader loader = new URLClassLoader(new URL[]{classes}, ClassLoader.getPlatformClassLoader());
+            return Class.forName(DateCodec.class.getName(), true, loader);
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+
+    private static Method method(Class<?> codec, String name, Class<?>... parameterTypes) throws Exception {
+        Method method = codec.getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return method;
+    }
+
+    /**
+     * Returns what the call returns, or a description of the exception it throws.
+     */
+    private static Object outcome(Callable<Object> call) {
+        try {
+            return call.call();
+        } catch (InvocationTargetException e) {
+            return describe(e.getCause());
+        } catch (Exception e) {
+            return describe(e);
+        }
+    }
+
+    private static String describe(Throwable thrown) {
+        return "threw " + thrown.getClass().getName() + ": " + thrown.getMessage();
+    }
+
+    private static LocalDateTime randomDateTime(Random random) {
+        int year = random.nextInt(20) == 0 ? random.nextInt(20001) - 10000 : 1 + random.nextInt(9999);
+        LocalDate date = LocalDate.ofYearDay(year, 1 + random.nextInt(LocalDate.of(year, 1, 1).lengthOfYear()));
+        LocalTime time = LocalTime.of(random.nextInt(24), random.nextInt(60));
+        switch (random.nextInt(4)) {
+        case 0:
+            time = time.withSecond(random.nextInt(60));
+            break;
+        case 1:
+            time = time.withSecond(random.nextInt(60)).withNano(random.nextInt(1_000_000_000));
+            break;
+        default:
+            break;
+        }
+        return date.atTime(time);
+    }
+
+    /**
+     * Replaces, inserts or deletes one to three characters of the text.
+     */
+    private static String mutate(String text, Random random) {
+        StringBuilder sb = new StringBuilder(text);
+        int edits = 1 + random.nextInt(3);
+        for (int i = 0; i < edits; i++) {
+            char c = MUTATION_CHARS.charAt(random.nextInt(MUTATION_CHARS.length()));
+            int at = random.nextInt(sb.length() + 1);
+            int kind = random.nextInt(3);
+            if (kind == 0 || at == sb.length()) {
+                sb.insert(at, c);
+            } else if (kind == 1) {
+                sb.setCharAt(at, c);
+            } else {
+                sb.deleteCharAt(at);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package monet;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+
+public class FlightRecorderEventsTest {
+    @Test
+    public void beginIfEnabled_noRecording_returnsNull() {
+        assertNull(FlightRecorderEvents.CommandEvent.beginIfEnabled());
+    }
+
+    @Test
+    public void beginIfEnabled_recordingOfCommands_returnsEvent() {
+        try (Recording recording = new Recording()) {
+            recording.enable("monet.Command");
+            recording.start();
+            assertNotNull(FlightRecorderEvents.CommandEvent.beginIfEnabled());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package monet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class IntervalTreeTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 10, 1, 0, 0);
+
+    @Test
+    public void findAllOverlaps_touchingEvents_areNotClashes() {
+        IntervalTree tree = treeOf(event("a", 10, 11), event("b", 11, 12), event("c", 12, 13));
+        assertEquals(List.of(), names(tree.findAllOverlaps()));
+    }
+
+    @Test
+    public void findAllOverlaps_nestedEvents_clashOnlyWithTheOuterOne() {
+        IntervalTree tree = treeOf(event("outer", 9, 17), event("first", 10, 11), event("second", 12, 13),
+                event("after", 17, 18));
+        assertEquals(List.of("outer+first", "outer+second"), names(tree.findAllOverlaps()));
+    }
+
+    @Test
+    public void findAllOverlaps_chainOfEvents_dropsEachOnceItEnds() {
+        IntervalTree tree = treeOf(event("a", 9, 11), event("b", 10, 12), event("c", 11, 13), event("d", 12, 14),
+                event("long", 9, 14));
+        assertEquals(List.of("a+long", "a+b", "long+b", "long+c", "b+c", "long+d", "c+d"),
+                names(tree.findAllOverlaps()));
+    }
+
+    @Test
+    public void findAllOverlaps_reversedEvent_isAPointAtItsStart() {
+        IntervalTree tree = treeOf(event("reversed", 12, 10), event("running", 11, 13), event("ended", 11, 12),
+                event("later", 12, 14));
+        // It clashes with what runs over 12:00, but not with what ends then, and is over at once.
+        assertEquals(List.of("running+ended", "running+reversed", "running+later"), names(tree.findAllOverlaps()));
+    }
+
+    @Test
+    public void findOverlapping_windowEdges_areExclusive() {
+        IntervalTree tree = treeOf(event("before", 8, 10), event("across start", 9, 11), event("inside", 11, 12),
+                event("across end", 13, 15), event("after", 14, 16));
+        assertEquals(List.of("across start", "inside", "across end"), namesOf(tree.findOverlapping(hour(10),
+                hour(14))));
+    }
+
+    @Test
+    public void findFreeSlots_eventsAcrossWindowEdges_areClippedToWindow() {
+        IntervalTree tree = treeOf(event("across start", 8, 10), event("inside", 12, 13),
+                event("across end", 16, 19));
+        assertEquals(List.of("10-12", "13-16"), slots(tree.findFreeSlots(hour(9), hour(17))));
+    }
+
+    @Test
+    public void findFreeSlots_touchingAndNestedEvents_leaveNoGapBetweenThem() {
+        IntervalTree tree = treeOf(event("a", 10, 11), event("b", 11, 12), event("outer", 13, 17),
+                event("nested", 14, 15));
+        assertEquals(List.of("9-10", "12-13", "17-18"), slots(tree.findFreeSlots(hour(9), hour(18))));
+    }
+
+    @Test
+    public void findFreeSlots_windowInsideOneEvent_isNotFree() {
+        IntervalTree tree = treeOf(event("all day", 8, 20));
+        assertEquals(List.of(), slots(tree.findFreeSlots(hour(9), hour(17))));
+        assertEquals(List.of("20-21"), slots(tree.findFreeSlots(hour(20), hour(21))));
+        assertEquals(List.of("7-8"), slots(tree.findFreeSlots(hour(7), hour(8))));
+    }
+
+    @Test
+    public void remove_event_isNoLongerFound() {
+        Event a = event("a", 10, 12);
+        Event b = event("b", 11, 13);
+        IntervalTree tree = treeOf(a, b);
+        IntervalTree removed = tree.remove(a);
+        assertEquals(List.of("b"), namesOf(removed.findOverlapping(hour(9), hour(14))));
+        assertEquals(List.of("a", "b"), namesOf(tree.findOverlapping(hour(9), hour(14))));
+        assertEquals(List.of("a+b"), names(removed.add(a).findAllOverlaps()));
+    }
+
+    private static IntervalTree treeOf(Event... events) {
+        IntervalTree tree = new IntervalTree();
+        for (int i = 0; i < events.length; i++) {
+            events[i].setId(i + 1);
+            tree = tree.add(events[i]);
+        }
+        return tree;
+    }
+
+    private static Event event(String description, int fromHour, int toHour) {
+        return new Event(description, hour(fromHour), hour(toHour), Priority.MEDIUM);
+    }
+
+    private static LocalDateTime hour(int hour) {
+        return DAY.plusHours(hour);
+    }
+
+    private static List<String> names(List<Event[]> pairs) {
+        List<String> names = new ArrayList<>();
+        for (Event[] pair : pairs) {
+            names.add(pair[0].getDescription() + "+" + pair[1].getDescription());
+        }
+        return names;
+    }
+
+    private static List<String> namesOf(List<Event> events) {
+        List<String> names = new ArrayList<>();
+        for (Event event : events) {
+            names.add(event.getDescription());
+        }
+        return names;
+    }
+
+    private static List<String> slots(List<LocalDateTime[]> slots) {
+        List<String> hours = new ArrayList<>();
+        for (LocalDateTime[] slot : slots) {
+            hours.add(slot[0].getHour() + "-" + slot[1].getHour());
+        }
+        return hours;
+    }
+}
@@ -0,0 +1,71 @@
+package monet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void getPercentileNanos_nothingRecorded_isZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(50));
+        assertEquals(0, histogram.getMeanNanos());
+    }
+
+    @Test
+    public void getPercentileNanos_shortDurations_areExact() {
+        LatencyHistogram histogram = histogramOf(1, 2, 3, 4, 5, 15);
+        assertEquals(1, histogram.getPercentileNanos(0));
+        assertEquals(3, histogram.getPercentileNanos(50));
+        assertEquals(5, histogram.getPercentileNanos(80));
+        assertEquals(15, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void getPercentileNanos_longerDurations_giveTheEndOfTheirBucket() {
+        // 1000 falls in 960-1023, 1100 in 1024-1151 and 5000 in 4608-5119.
+        LatencyHistogram histogram = histogramOf(1000, 1100, 5000);
+        assertEquals(1023, histogram.getPercentileNanos(0));
+        assertEquals(1023, histogram.getPercentileNanos(33));
+        assertEquals(1151, histogram.getPercentileNanos(50));
+        // The maximum is known exactly, so it caps the end of its bucket.
+        assertEquals(5000, histogram.getPercentileNanos(99));
+        assertEquals(5000, histogram.getPercentileNanos(100));
+        assertEquals(2366, histogram.getMeanNanos());
+        assertEquals(7100, histogram.getTotalNanos());
+    }
+
+    @Test
+    public void getPercentileNanos_evenlySpreadDurations_areWithinAnEighth() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos);
+        }
+        for (int percentile = 1; percentile <= 100; percentile++) {
+            long exact = 1000L * percentile;
+            long reported = histogram.getPercentileNanos(percentile);
+            String message = "p" + percentile + " was " + reported;
+            assertTrue(reported >= exact && reported <= exact + exact / 8, message);
+        }
+        assertEquals(98_303, histogram.getPercentileNanos(95)); // 95000 falls in 90112-98303.
+    }
+
+    @Test
+    public void record_negativeAndVeryLongDurations_areClamped() {
+        long veryLong = 1L << 40;
+        LatencyHistogram histogram = histogramOf(-5, 0, veryLong);
+        assertEquals(3, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(50));
+        assertEquals(veryLong, histogram.getPercentileNanos(100));
+        assertEquals(veryLong, histogram.getMaxNanos());
+    }
+
+    private static LatencyHistogram histogramOf(long... durations) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos : durations) {
+            histogram.record(nanos);
+        }
+        return histogram;
+    }
+}
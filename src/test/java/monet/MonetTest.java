@@ -0,0 +1,148 @@
+package monet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MonetTest {
+    @TempDir
+    File directory;
+
+    @AfterEach
+    public void clearColumnar() {
+        System.clearProperty(TaskList.COLUMNAR_PROPERTY);
+    }
+
+    @Test
+    public void getResponse_changeAfterCompactionOfColumnarList_isKeptOnReload() {
+        System.setProperty(TaskList.COLUMNAR_PROPERTY, "true");
+        String path = new File(directory, "monet.txt").getPath();
+        Monet monet = new Monet(path);
+        monet.getResponse("todo a");
+        monet.getResponse("todo b");
+        monet.getResponse("todo c");
+        monet.getResponse("delete 1");
+        // Enough changes for a compaction, which gives b and c new ids in the data file.
+        for (int i = 0; i < Storage.DEFAULT_COMPACTION_THRESHOLD; i++) {
+            monet.getResponse(i % 2 == 0 ? "mark 1" : "unmark 1");
+        }
+        monet.getResponse("mark 2");
+        String expected = monet.getResponse("list");
+        monet.shutdown();
+
+        Monet reloaded = new Monet(path);
+        assertEquals(expected, reloaded.getResponse("list"));
+        reloaded.shutdown();
+    }
+
+    @Test
+    public void shutdown_afterJournalWriteFailed_savesChange() {
+        String path = new File(directory, "monet.txt").getPath();
+        File journal = new File(directory, "monet.txt.journal");
+        Monet monet = new Monet(path);
+        assertTrue(journal.mkdir()); // A directory in the journal's place makes every journal write fail.
+        monet.getResponse("todo a");
+        String goodbye = monet.getResponse("bye");
+        assertTrue(journal.delete());
+        monet.shutdown();
+
+        Monet reloaded = new Monet(path);
+        assertEquals(new Ui().getTaskListMessage(new TaskList(new ArrayList<>(List.of(new Todo("a",
+                Priority.MEDIUM))))), reloaded.getResponse("list"), goodbye);
+        reloaded.shutdown();
+    }
+
+    @Test
+    public void getResponse_randomUndoRedo_matchesModel() {
+        checkUndoRedoAgainstModel(false);
+    }
+
+    @Test
+    public void getResponse_randomUndoRedoOnColumnarList_matchesModel() {
+        System.setProperty(TaskList.COLUMNAR_PROPERTY, "true");
+        checkUndoRedoAgainstModel(true);
+    }
+
+    /**
+     * Runs random changes, undos and redos, and checks the list after each one against a model that keeps a
+     * copy of the whole list for every change. The list is reloaded now and then, which clears the history.
+     */
+    private void checkUndoRedoAgainstModel(boolean isColumnar) {
+        String path = new File(directory, "monet.txt").getPath();
+        Random random = new Random(isColumnar ? 17 : 16);
+        ArrayList<String> model = new ArrayList<>();
+        ArrayDeque<ArrayList<String>> undoable = new ArrayDeque<>();
+        ArrayDeque<ArrayList<String>> redoable = new ArrayDeque<>();
+        Monet monet = new Monet(path);
+        for (int step = 0; step < 6000; step++) {
+            int choice = random.nextInt(10);
+            if (choice < 4 || model.isEmpty() && choice < 7) {
+                String description = "task" + random.nextInt(1000);
+                monet.getResponse("todo " + description);
+                record(undoable, redoable, model);
+                model.add(description + "|false");
+            } else if (choice < 7) {
+                int index = random.nextInt(model.size());
+                if (choice == 4) {
+                    monet.getResponse("delete " + (index + 1));
+                    record(undoable, redoable, model);
+                    model.remove(index);
+                } else {
+                    boolean isDone = choice == 5;
+                    monet.getResponse((isDone ? "mark " : "unmark ") + (index + 1));
+                    record(undoable, redoable, model);
+                    model.set(index, model.get(index).split("\\|")[0] + "|" + isDone);
+                }
+            } else {
+                boolean isUndo = choice < 9;
+                int count = 1 + random.nextInt(3);
+                monet.getResponse((isUndo ? "undo " : "redo ") + count);
+                ArrayDeque<ArrayList<String>> from = isUndo ? undoable : redoable;
+                ArrayDeque<ArrayList<String>> to = isUndo ? redoable : undoable;
+                for (int i = 0; i < count && !from.isEmpty(); i++) {
+                    to.push(model);
+                    model = from.pop();
+                }
+            }
+            if (step % 500 == 499) {
+                monet.shutdown();
+                monet = new Monet(path);
+                undoable.clear();
+                redoable.clear();
+            }
+            assertEquals(render(model), monet.getResponse("list"), "step " + step);
+        }
+        monet.shutdown();
+    }
+
+    private static void record(ArrayDeque<ArrayList<String>> undoable, ArrayDeque<ArrayList<String>> redoable,
+            ArrayList<String> model) {
+        redoable.clear();
+        if (undoable.size() == History.DEFAULT_LIMIT) {
+            undoable.removeLast();
+        }
+        undoable.push(new ArrayList<>(model));
+    }
+
+    private static String render(ArrayList<String> model) {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (String entry : model) {
+            String[] parts = entry.split("\\|");
+            Todo todo = new Todo(parts[0], Priority.MEDIUM);
+            if (Boolean.parseBoolean(parts[1])) {
+                todo.markAsDone();
+            }
+            tasks.add(todo);
+        }
+        return new Ui().getTaskListMessage(new TaskList(tasks));
+    }
+}
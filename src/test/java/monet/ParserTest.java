@@ -0,0 +1,58 @@
+package monet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.Test;
+
+public class ParserTest {
+    @Test
+    public void parseDue_before_returnsOpenStart() throws MonetException {
+        Parser.TimeRange range = Parser.parseDue("due  BEFORE\t2025-10-01   1800 ");
+        assertNull(range.from());
+        assertEquals(LocalDateTime.of(2025, 10, 1, 18, 0), range.to());
+    }
+
+    @Test
+    public void parseDue_betweenDates_coversWholeLastDay() throws MonetException {
+        Parser.TimeRange range = Parser.parseDue("due between 2025-10-01 2025-10-03");
+        assertEquals(LocalDateTime.of(2025, 10, 1, 0, 0), range.from());
+        assertEquals(LocalDateTime.of(2025, 10, 3, 0, 0).with(LocalTime.MAX), range.to());
+    }
+
+    @Test
+    public void parseDue_betweenDateTimes_returnsBoth() throws MonetException {
+        Parser.TimeRange range = Parser.parseDue("due between 2025-10-01 0930 2025-10-03 1700");
+        assertEquals(LocalDateTime.of(2025, 10, 1, 9, 30), range.from());
+        assertEquals(LocalDateTime.of(2025, 10, 3, 17, 0), range.to());
+    }
+
+    @Test
+    public void parseDue_badFormat_throws() {
+        assertThrows(MonetException.class, () -> Parser.parseDue("due"));
+        assertThrows(MonetException.class, () -> Parser.parseDue("due before"));
+        assertThrows(MonetException.class, () -> Parser.parseDue("due after 2025-10-01"));
+        assertThrows(MonetException.class, () -> Parser.parseDue("due before 2025-10-01 1800 extra"));
+        assertThrows(MonetException.class, () -> Parser.parseDue("due between 2025-10-01"));
+        assertThrows(MonetException.class, () -> Parser.parseDue("due before 2025-13-01"));
+    }
+
+    @Test
+    public void parseFree_window_returnsBothEnds() throws MonetException {
+        Parser.TimeRange range = Parser.parseFree("free 2025-10-01 0900  /to  2025-10-01 1700 ");
+        assertEquals(LocalDateTime.of(2025, 10, 1, 9, 0), range.from());
+        assertEquals(LocalDateTime.of(2025, 10, 1, 17, 0), range.to());
+    }
+
+    @Test
+    public void parseFree_badWindow_throws() {
+        assertThrows(MonetException.class, () -> Parser.parseFree("free 2025-10-01"));
+        assertThrows(MonetException.class, () -> Parser.parseFree("free 2025-10-01 /to "));
+        assertThrows(MonetException.class, () -> Parser.parseFree("free 2025-10-01 0900 x /to 2025-10-02"));
+        assertThrows(MonetException.class, () -> Parser.parseFree("free 2025-10-02 /to 2025-10-01"));
+    }
+}
@@ -0,0 +1,60 @@
+package monet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PerformanceGateTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void run_noBaseline_failsWithoutRecording() throws IOException {
+        File baselineFile = directory.resolve("baseline.properties").toFile();
+        StringBuilder report = new StringBuilder();
+        assertFalse(new PerformanceGate(baselineFile).run(false, report));
+        assertTrue(report.toString().endsWith("FAILED"), report.toString());
+        assertFalse(baselineFile.exists());
+    }
+
+    @Test
+    public void run_updateUnderGermanLocale_recordsBaselineThatReadsBack() throws IOException {
+        File baselineFile = directory.resolve("baseline.properties").toFile();
+        try (Writer writer = new FileWriter(baselineFile, StandardCharsets.UTF_8)) {
+            writer.write("tasks=20\ncommands=200\n");
+        }
+
+        Locale saved = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            assertTrue(new PerformanceGate(baselineFile).run(true, new StringBuilder()));
+            Properties baseline = new Properties();
+            try (Reader reader = new FileReader(baselineFile, StandardCharsets.UTF_8)) {
+                baseline.load(reader);
+            }
+            assertEquals("200", baseline.getProperty("commands"));
+            Double.parseDouble(baseline.getProperty("throughput"));
+            Double.parseDouble(baseline.getProperty("p99Millis"));
+
+            StringBuilder report = new StringBuilder();
+            new PerformanceGate(baselineFile).run(false, report);
+            assertTrue(report.toString().contains("baseline: "), report.toString());
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+}
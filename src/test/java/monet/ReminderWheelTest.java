@@ -0,0 +1,119 @@
+package monet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the wheel against a plain list of reminders that is searched in full on every move.
+ */
+public class ReminderWheelTest {
+    private static final long LEVEL_3_MINUTES = 1L << 24; // Beyond this, reminders wait in the overflow list.
+
+    @Test
+    public void advanceTo_randomAddsAndCancels_matchesModel() {
+        Random random = new Random(20251018L);
+        long startMinute = 29_000_000L + random.nextInt(1 << 20);
+        ReminderWheel wheel = new ReminderWheel(startMinute);
+        // The minute each waiting reminder is handed out at, which is the next tick for one that is already due.
+        HashMap<ReminderWheel.Reminder, Long> model = new HashMap<>();
+        ArrayList<ReminderWheel.Reminder> waiting = new ArrayList<>();
+        ArrayList<ReminderWheel.Reminder> due = new ArrayList<>();
+        long nextId = 1;
+
+        for (int step = 0; step < 4000; step++) {
+            long now = wheel.getCurrentMinute();
+            int action = random.nextInt(10);
+            if (action < 5) {
+                long dueMinute = now + randomOffset(random);
+                ReminderWheel.Reminder reminder = new ReminderWheel.Reminder(nextId++, null, dueMinute);
+                wheel.add(reminder);
+                model.put(reminder, Math.max(dueMinute, now + 1));
+                waiting.add(reminder);
+            } else if (action < 7 && !waiting.isEmpty()) {
+                ReminderWheel.Reminder reminder = waiting.remove(random.nextInt(waiting.size()));
+                wheel.cancel(reminder);
+                model.remove(reminder);
+            } else {
+                long minute = now + randomAdvance(random);
+                wheel.advanceTo(minute, due);
+                checkDue(model, waiting, due, now, minute);
+                due.clear();
+            }
+            assertEquals(model.size(), wheel.getSize(), "step " + step);
+        }
+
+        long last = model.values().stream().mapToLong(Long::longValue).max().orElse(wheel.getCurrentMinute());
+        long now = wheel.getCurrentMinute();
+        wheel.advanceTo(last, due);
+        checkDue(model, waiting, due, now, last);
+        assertEquals(0, wheel.getSize());
+    }
+
+    /**
+     * Checks that a move from one minute to another handed out exactly the reminders the model has due by then,
+     * in the order they fell due, and takes them out of the model.
+     */
+    private static void checkDue(HashMap<ReminderWheel.Reminder, Long> model, List<ReminderWheel.Reminder> waiting,
+            List<ReminderWheel.Reminder> due, long from, long to) {
+        ArrayList<ReminderWheel.Reminder> expected = new ArrayList<>();
+        for (ReminderWheel.Reminder reminder : waiting) {
+            if (to > from && model.get(reminder) <= to) {
+                expected.add(reminder);
+            }
+        }
+        expected.sort((a, b) -> Long.compare(model.get(a), model.get(b)));
+        String message = "from " + from + " to " + to;
+        assertEquals(expected.size(), due.size(), message);
+        for (int i = 0; i < due.size(); i++) {
+            assertEquals(model.get(expected.get(i)), model.get(due.get(i)), message + ", reminder " + i);
+            assertTrue(model.containsKey(due.get(i)), message);
+        }
+        for (ReminderWheel.Reminder reminder : due) {
+            model.remove(reminder);
+        }
+        waiting.removeAll(due);
+    }
+
+    /**
+     * Returns how far to move the wheel on: mostly a little, now and then round a level, and rarely round the top
+     * level, so that the overflow list is sorted out.
+     */
+    private static long randomAdvance(Random random) {
+        int kind = random.nextInt(200);
+        if (kind == 0) {
+            return LEVEL_3_MINUTES + random.nextInt(1 << 20);
+        } else if (kind < 20) {
+            return random.nextInt(1 << 18);
+        } else {
+            return random.nextInt(4096) - 64;
+        }
+    }
+
+    /**
+     * Returns how far ahead a reminder is due, spread over every level of the wheel and the overflow list, with
+     * some that are due already.
+     */
+    private static long randomOffset(Random random) {
+        switch (random.nextInt(6)) {
+        case 0:
+            return -random.nextInt(100);
+        case 1:
+            return random.nextInt(64);
+        case 2:
+            return random.nextInt(4096);
+        case 3:
+            return random.nextInt(1 << 18);
+        case 4:
+            return random.nextInt((int) LEVEL_3_MINUTES);
+        default:
+            return LEVEL_3_MINUTES + random.nextInt((int) LEVEL_3_MINUTES);
+        }
+    }
+}
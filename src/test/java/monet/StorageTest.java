@@ -0,0 +1,176 @@
+package monet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StorageTest {
+    @TempDir
+    File directory;
+
+    @Test
+    public void load_taskAddedAfterLastTaskDeleted_keepsTask() throws Exception {
+        String path = new File(directory, "monet.txt").getPath();
+        Storage storage = new Storage(path, 1000, 0);
+        storage.load();
+        storage.save(new ArrayList<>(List.of(new Todo("read book", Priority.HIGH), new Todo("buy milk",
+                Priority.LOW))));
+        storage.close();
+
+        storage = new Storage(path, 1000, 0);
+        ArrayList<Task> tasks = storage.load();
+        storage.journalDelete(tasks.get(1));
+        storage.close();
+
+        // The list now ends at id 1, so the next task added takes id 2 again.
+        storage = new Storage(path, 1000, 0);
+        tasks = storage.load();
+        Task added = new Todo("water plants", Priority.MEDIUM);
+        added.setId(tasks.get(tasks.size() - 1).getId() + 1);
+        storage.journalAdd(added);
+        storage.close();
+
+        storage = new Storage(path, 1000, 0);
+        tasks = storage.load();
+        storage.close();
+        assertEquals(2, tasks.size());
+        assertEquals("read book", tasks.get(0).getDescription());
+        assertEquals("water plants", tasks.get(1).getDescription());
+    }
+
+    @Test
+    public void load_taskAddedAfterDeletedSnapshotTask_keepsListOrder() throws Exception {
+        String path = new File(directory, "monet.txt").getPath();
+        Storage storage = new Storage(path, 1000, 0);
+        storage.load();
+        storage.save(new ArrayList<>(List.of(new Todo("a", Priority.HIGH), new Todo("b", Priority.HIGH),
+                new Todo("c", Priority.HIGH))));
+        storage.close();
+
+        storage = new Storage(path, 1000, 0);
+        ArrayList<Task> tasks = storage.load();
+        storage.journalDelete(tasks.get(2));
+        storage.journalDelete(tasks.get(1));
+        storage.close();
+
+        storage = new Storage(path, 1000, 0);
+        storage.load();
+        Task d = new Todo("d", Priority.LOW);
+        d.setId(2);
+        Task e = new Todo("e", Priority.LOW);
+        e.setId(3);
+        storage.journalAdd(d);
+        storage.journalAdd(e);
+        d.markAsDone();
+        storage.journalStatus(d);
+        storage.close();
+
+        storage = new Storage(path, 1000, 0);
+        tasks = storage.load();
+        storage.close();
+        assertEquals(3, tasks.size());
+        assertEquals("a", tasks.get(0).getDescription());
+        assertEquals("d", tasks.get(1).getDescription());
+        assertTrue(tasks.get(1).isDone());
+        assertEquals("e", tasks.get(2).getDescription());
+    }
+
+    @Test
+    public void save_keepsIdsAndJournalRefersToSnapshotPositions() throws Exception {
+        String path = new File(directory, "monet.txt").getPath();
+        Storage storage = new Storage(path, 1000, 0);
+        storage.load();
+        ArrayList<Task> saved = new ArrayList<>();
+        for (String description : List.of("a", "b", "c")) {
+            Task task = new Todo(description, Priority.MEDIUM);
+            task.setId(5 + 2 * saved.size());
+            saved.add(task);
+        }
+        storage.save(saved);
+        assertEquals(List.of(5L, 7L, 9L), saved.stream().map(Task::getId).toList());
+
+        Task added = new Todo("d", Priority.LOW);
+        added.setId(12);
+        storage.journalAdd(added);
+        storage.journalDelete(saved.get(0));
+        Task b = saved.get(1).withDone(true);
+        storage.journalStatus(b);
+        storage.close();
+
+        storage = new Storage(path, 1000, 0);
+        ArrayList<Task> tasks = storage.load();
+        storage.close();
+        assertEquals(List.of("b", "c", "d"), tasks.stream().map(Task::getDescription).toList());
+        assertTrue(tasks.get(0).isDone());
+        assertEquals(List.of(2L, 3L, 6L), tasks.stream().map(Task::getId).toList());
+    }
+
+    @Test
+    public void journalAdd_taskDeletedBeforeSave_makesCompactionDue() throws Exception {
+        String path = new File(directory, "monet.txt").getPath();
+        Storage storage = new Storage(path, 1000, 0);
+        storage.load();
+        Task a = new Todo("a", Priority.MEDIUM);
+        a.setId(1);
+        Task b = new Todo("b", Priority.MEDIUM);
+        b.setId(2);
+        Task c = new Todo("c", Priority.MEDIUM);
+        c.setId(3);
+        storage.save(new ArrayList<>(List.of(a, c)));
+        assertFalse(storage.isCompactionDue());
+
+        // b has no place in the snapshot, so only a new snapshot can record it.
+        storage.journalAdd(b);
+        assertTrue(storage.isCompactionDue());
+        storage.save(new ArrayList<>(List.of(a, b, c)));
+        storage.close();
+
+        storage = new Storage(path, 1000, 0);
+        ArrayList<Task> tasks = storage.load();
+        storage.close();
+        assertEquals(List.of("a", "b", "c"), tasks.stream().map(Task::getDescription).toList());
+    }
+
+    @Test
+    public void load_textFileOfSeveralChunks_readsEveryTaskAndSavesOverIt() throws Exception {
+        File file = new File(directory, "monet.txt");
+        int count = 200_000; // About 8 MB, so it is read in more than one chunk.
+        try (Writer writer = new FileWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(i % 2 == 0 ? "T | 0 | HIGH | read chapter " + i + "\n"
+                        : "D | 1 | LOW | return book " + i + " | 2025-09-26T17:00\n");
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(file.toPath()));
+
+        SnapshotLoader loader = new SnapshotLoader(file);
+        ArrayList<Task> tasks = loader.load();
+        assertEquals(crc.getValue(), loader.getChecksum());
+        assertEquals(count, tasks.size());
+        for (int i = 0; i < count; i += 997) {
+            assertEquals((i % 2 == 0 ? "read chapter " : "return book ") + i, tasks.get(i).getDescription());
+        }
+
+        // Nothing of the loaded file may stay open, or replacing it fails on Windows.
+        Storage storage = new Storage(file.getPath(), 1000, 0);
+        tasks = storage.load();
+        storage.save(new ArrayList<>(tasks.subList(0, 3)));
+        storage.close();
+        storage = new Storage(file.getPath(), 1000, 0);
+        assertEquals(3, storage.load().size());
+        storage.close();
+    }
+}
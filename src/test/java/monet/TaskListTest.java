@@ -0,0 +1,99 @@
+package monet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskListTest {
+    @Test
+    public void snapshot_columnarList_isNotChangedByLaterChanges() {
+        TaskList list = TaskList.columnar(new ArrayList<>(List.of(new Todo("a", Priority.HIGH),
+                new Todo("b", Priority.LOW))));
+        TaskList snapshot = list.snapshot();
+        list.markTask(0);
+        list.deleteTask(1);
+        list.addTask(new Todo("c", Priority.MEDIUM));
+
+        assertEquals(2, snapshot.getSize());
+        assertFalse(snapshot.getTask(0).isDone());
+        assertEquals("b", snapshot.getTask(1).getDescription());
+        assertTrue(list.getTask(0).isDone());
+        assertEquals("c", list.getTask(1).getDescription());
+    }
+
+    @Test
+    public void findTasks_randomChanges_matchesContainsScan() {
+        Random random = new Random(15);
+        TaskList list = new TaskList();
+        ArrayList<Task> model = new ArrayList<>();
+        Task deleted = null;
+        for (int step = 0; step < 3000; step++) {
+            int choice = random.nextInt(5);
+            if (choice == 4 && deleted != null) {
+                // Undo the last deletion, putting the task back where its id belongs.
+                long id = deleted.getId();
+                int index = (int) model.stream().filter(task -> task.getId() < id).count();
+                list.insertTask(index, deleted);
+                model.add(index, deleted);
+                deleted = null;
+            } else if (choice < 2 || model.isEmpty()) {
+                Task task = new Todo(randomWords(random), Priority.MEDIUM);
+                list.addTask(task);
+                model.add(task);
+            } else if (choice == 2) {
+                int index = random.nextInt(model.size());
+                deleted = list.deleteTask(index);
+                model.remove(index);
+            } else if (choice == 3) {
+                int index = random.nextInt(model.size());
+                model.set(index, list.markTask(index));
+            }
+            String keyword = randomWords(random).substring(0, 3);
+            List<Task> expected = model.stream().filter(task -> task.getDescription().contains(keyword)).toList();
+            assertEquals(expected, list.findTasks(keyword).getTasks(), "step " + step);
+        }
+    }
+
+    @Test
+    public void findTasks_manyDistinctTrigrams_matchesContainsScan() {
+        Random random = new Random(16);
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            tasks.add(new Todo(randomLetters(random, 12), Priority.LOW));
+        }
+        TaskList list = new TaskList(tasks);
+        for (int step = 0; step < 200; step++) {
+            String keyword = randomLetters(random, 3);
+            List<Task> expected = list.getTasks().stream()
+                    .filter(task -> task.getDescription().contains(keyword)).toList();
+            assertEquals(expected, list.findTasks(keyword).getTasks(), "step " + step);
+            list.addTask(new Todo(randomLetters(random, 12), Priority.LOW));
+            list.deleteTask(random.nextInt(list.getSize()));
+        }
+    }
+
+    private static String randomLetters(Random random, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    private static String randomWords(Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1 + random.nextInt(3); i++) {
+            sb.append(i > 0 ? " " : "");
+            for (int j = 0; j < 3; j++) {
+                sb.append((char) ('a' + random.nextInt(4)));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,35 @@
+package monet.gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ChatHistoryTest {
+    @TempDir
+    File directory;
+
+    @Test
+    public void add_pastLimit_spillsOldestMessagesInOrder() throws Exception {
+        File spillFile = new File(directory, "chat.txt");
+        ChatHistory history = new ChatHistory(8, spillFile.getPath());
+        for (int i = 0; i < 30; i++) {
+            history.add(new ChatMessage(i % 2 == 0, "message " + i + "\nsecond line"));
+        }
+        history.close();
+
+        int kept = history.getMessages().size();
+        assertEquals("message " + (30 - kept) + "\nsecond line", history.getMessages().get(0).getText());
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 30 - kept; i++) {
+            expected.add((i % 2 == 0 ? "You: " : "Monet: ") + "message " + i + "\\nsecond line");
+        }
+        assertEquals(expected, Files.readAllLines(spillFile.toPath(), StandardCharsets.UTF_8));
+    }
+}